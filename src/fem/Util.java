@@ -8,6 +8,7 @@ import fem.mesh.Triangle;
 import fem.mesh.Vertex;
 import graphs.Edge;
 import graphs.Graph;
+import graphs.Heuristic;
 import graphs.ModifiableGraph;
 import java.io.BufferedReader;
 import java.io.File;
@@ -152,4 +153,15 @@ public class Util {
         return g;
     }
 
+    /**
+     * @return Euclidean A* heuristic for graph of the mesh (see graphOfIMesh)
+     */
+    public static Heuristic meshHeuristic(IMesh mesh, Graph g) {
+        double[][] coordinates = new double[mesh.getNoVertices()][];
+        for (int v = 0; v < coordinates.length; v++) {
+            coordinates[v] = mesh.getVertex(v).getX();
+        }
+        return Heuristic.euclidean(coordinates, g);
+    }
+
 }
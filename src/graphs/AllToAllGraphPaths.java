@@ -1,6 +1,8 @@
 package graphs;
 
 import graphs_old.*;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 
 /**
  * Shortest paths with respect to a single source
@@ -9,17 +11,35 @@ import graphs_old.*;
  */
 public class AllToAllGraphPaths {
 
+    // d[i][j], p[i][j] for i-th and j-th vertex of the VertexIndex (not vertex numbers), null if kept in flat arrays
     public double[][] d;
     public int[][] p;
     public double minDist, maxDist;
     public int sMin, dMin, sMax, dMax;
+    private final VertexIndex index;  // null if d and p are indexed by vertex numbers
+    private final double[] flatD;     // row-major n*n matrices, used instead of d and p if not null
+    private final int[] flatP;
+    private final int size;
 
     public AllToAllGraphPaths(double[][] d, int[][] p) {
+        this(d, p, null);
+    }
+
+    /**
+     * @param d - distances between vertices given by their indices
+     * @param p - indices of predecessors
+     * @param index - the mapping between vertex numbers and indices used in d and p
+     */
+    public AllToAllGraphPaths(double[][] d, int[][] p, VertexIndex index) {
         if (d.length < 1 || d.length != p.length || d[0].length != p[0].length) {
             throw new IllegalArgumentException("AllGraphPaths constructor: distance and precedessor arrays are not compatible!");
         }
         this.d = d;
         this.p = p;
+        this.index = index == null || index.isIdentity() ? null : index;
+        this.flatD = null;
+        this.flatP = null;
+        this.size = d.length;
         minDist = d[0][1];
         maxDist = dMin;
         sMin = sMax = 0;
@@ -41,15 +61,140 @@ public class AllToAllGraphPaths {
                 }
             }
         }
+        translateExtremes();
+    }
+
+    /**
+     * Paths kept in flat arrays, d and p fields are null.
+     *
+     * @param n - the number of vertices
+     * @param d - distances, d[i*n+j] is the distance from i-th to j-th vertex
+     * @param p - predecessors, p[i*n+j] is the index of the vertex preceding
+     * j-th on the path from i-th (-1 if there is none)
+     * @param index - the mapping between vertex numbers and indices used in d and p
+     */
+    public AllToAllGraphPaths(int n, double[] d, int[] p, VertexIndex index) {
+        if (n < 1 || d.length != (long) n * n || p.length != d.length) {
+            throw new IllegalArgumentException("AllGraphPaths constructor: distance and precedessor arrays are not compatible!");
+        }
+        this.index = index == null || index.isIdentity() ? null : index;
+        this.flatD = d;
+        this.flatP = p;
+        this.size = n;
+        minDist = n > 1 ? d[1] : Double.POSITIVE_INFINITY;
+        maxDist = dMin;
+        sMin = sMax = 0;
+        dMin = dMax = 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0, o = i * n; j < n; j++, o++) {
+                double x = d[o];
+                if (i != j && x != Double.POSITIVE_INFINITY) {
+                    if (x < minDist) {
+                        minDist = x;
+                        sMin = i;
+                        dMin = j;
+                    }
+                    if (x > maxDist) {
+                        maxDist = x;
+                        sMax = i;
+                        dMax = j;
+                    }
+                }
+            }
+        }
+        translateExtremes();
+    }
+
+    private void translateExtremes() {
+        if (this.index != null) {
+            sMin = index.toId(sMin);
+            dMin = index.toId(dMin);
+            sMax = index.toId(sMax);
+            dMax = index.toId(dMax);
+        }
         System.out.println("Min: (" + sMin + "-" + dMin + ")=" + minDist);
         System.out.println("Max: (" + sMax + "-" + dMax + ")=" + maxDist);
     }
 
+    // -1 if there is no such vertex
+    private int row(int n) {
+        if (index != null) {
+            return index.toIndex(n);
+        }
+        return n >= 0 && n < size ? n : -1;
+    }
+
+    /**
+     * @return length of the shortest path between given vertices,
+     * Double.POSITIVE_INFINITY if any of them is not in the graph
+     */
+    public double getDistance(int from, int to) {
+        int i = row(from);
+        int j = row(to);
+        if (i < 0 || j < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return flatD != null ? flatD[i * size + j] : d[i][j];
+    }
+
+    /**
+     * Read-only view (no copy) of the distances from vertex n, indexed like
+     * vertices of the graph's VertexIndex - by vertex numbers if they are
+     * 0..size-1; null if n is not in the graph.
+     */
+    public DoubleBuffer distancesFrom(int n) {
+        int i = row(n);
+        if (i < 0) {
+            return null;
+        }
+        DoubleBuffer b = flatD != null ? DoubleBuffer.wrap(flatD, i * size, size) : DoubleBuffer.wrap(d[i]);
+        return b.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Read-only view (no copy) of the predecessors on the paths from vertex
+     * n, indexed and valued like distancesFrom; null if n is not in the graph.
+     */
+    public IntBuffer predecessorsFrom(int n) {
+        int i = row(n);
+        if (i < 0) {
+            return null;
+        }
+        IntBuffer b = flatP != null ? IntBuffer.wrap(flatP, i * size, size) : IntBuffer.wrap(p[i]);
+        return b.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return paths from vertex n, indexed by vertex numbers; null if n is
+     * not in the graph
+     */
     public SingleSourceGraphPaths getSSPaths(int n) {
-        double[] dn = new double[d[n].length];
-        int[] pn = new int[p[n].length];
-        System.arraycopy(d[n], 0, dn, 0, dn.length);
-        System.arraycopy(p[n], 0, pn, 0, pn.length);
+        int row = row(n);
+        if (row < 0) {
+            return null;
+        }
+        if (index != null) {
+            double[] dn = new double[index.maxId() + 1];
+            int[] pn = new int[dn.length];
+            java.util.Arrays.fill(dn, Double.POSITIVE_INFINITY);
+            java.util.Arrays.fill(pn, -1);
+            for (int j = 0; j < size; j++) {
+                double x = flatD != null ? flatD[row * size + j] : d[row][j];
+                int y = flatP != null ? flatP[row * size + j] : p[row][j];
+                dn[index.toId(j)] = x;
+                pn[index.toId(j)] = y < 0 ? -1 : index.toId(y);
+            }
+            return new SingleSourceGraphPaths(dn, pn);
+        }
+        double[] dn = new double[size];
+        int[] pn = new int[size];
+        if (flatD != null) {
+            System.arraycopy(flatD, n * size, dn, 0, size);
+            System.arraycopy(flatP, n * size, pn, 0, size);
+        } else {
+            System.arraycopy(d[n], 0, dn, 0, dn.length);
+            System.arraycopy(p[n], 0, pn, 0, pn.length);
+        }
         return new SingleSourceGraphPaths(dn, pn);
     }
 }
@@ -16,6 +16,13 @@ public class BasicGraph implements Graph {
 
     private double minEdgeWeight, maxEdgeWeight;
 
+    private VertexIndex vertexIndex; // cached, dropped whenever set of vertices changes
+
+    // found when first needed, valid for one version of the graph
+    private long directionVersion = -1;
+    private boolean directed;
+    private CompactGraph reversed;
+
     public BasicGraph() {}
 
     public BasicGraph(int nextVertexNo,HashMap<Integer, HashSet<Edge>> connectLists  ) {
@@ -47,6 +54,64 @@ public class BasicGraph implements Graph {
         return connectLists.keySet();
     }
 
+    /**
+     * @return continuous numbering of the vertices
+     */
+    @Override
+    public VertexIndex getVertexIndex() {
+        // size check protects against subclasses filling connectLists directly
+        if (vertexIndex == null || vertexIndex.size() != connectLists.size()) {
+            vertexIndex = new VertexIndex(connectLists.keySet());
+        }
+        return vertexIndex;
+    }
+
+    protected void invalidateVertexIndex() {
+        vertexIndex = null;
+    }
+
+    /**
+     * @return false if each connection u-v has its counterpart v-u of the
+     * same weight (checked once for each version of the graph)
+     */
+    @Override
+    public boolean isDirected() {
+        long version = getVersion();
+        if (directionVersion != version) {
+            directed = !symmetric();
+            reversed = null;
+            directionVersion = version;
+        }
+        return directed;
+    }
+
+    private boolean symmetric() {
+        for (Integer u : connectLists.keySet()) {
+            for (Edge e : connectLists.get(u)) {
+                int v = e.getVertexA() != u ? e.getVertexA() : e.getVertexB();
+                HashSet<Edge> back = connectLists.get(v);
+                if (v != u && (back == null || !back.contains(new Edge(v, u, e.getWeight())))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return graph with all connections reversed, kept until the graph
+     * changes (this graph if it is undirected)
+     */
+    Graph reverse() {
+        if (!isDirected()) {
+            return this;
+        }
+        if (reversed == null) {
+            reversed = CompactGraph.reverseOf(this);
+        }
+        return reversed;
+    }
+
     /**
      * @return all egdes
      */
@@ -93,11 +158,15 @@ public class BasicGraph implements Graph {
         return maxEdgeWeight;
     }
 
+    protected void invalidateEdgesWeights() {
+        minEdgeWeight = maxEdgeWeight = 0.0;  // will be recalculated when needed
+    }
+
     protected void updateEdgesWeights() {
         minEdgeWeight = Double.POSITIVE_INFINITY;
         maxEdgeWeight = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < nextVertexNo; i++) {
-            for (Edge e : connectLists.get(i)) {
+        for (HashSet<Edge> list : connectLists.values()) {
+            for (Edge e : list) {
                 double w = e.getWeight();
                 if (w < minEdgeWeight) {
                     minEdgeWeight = w;
@@ -127,6 +196,22 @@ public class BasicGraph implements Graph {
         return copy;
     }
 
+    @Override
+    public void forEachNeighbor(int n, IntDoubleConsumer consumer) {
+        HashSet<Edge> s = connectLists == null ? null : connectLists.get(n);
+        if (s != null) {
+            for (Edge e : s) {
+                consumer.accept(e.getVertexA() != n ? e.getVertexA() : e.getVertexB(), e.getWeight());
+            }
+        }
+    }
+
+    @Override
+    public int degree(int n) {
+        HashSet<Edge> s = connectLists == null ? null : connectLists.get(n);
+        return s == null ? 0 : s.size();
+    }
+
     @Override
     public String toString() {
         String s = new String(connectLists.size() + "");
@@ -0,0 +1,202 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Bellman-Ford which relaxes only the connections of vertices whose distance
+ * has changed, so it stops as soon as distances stop changing.
+ *
+ * spfa keeps such vertices in a FIFO queue (each at most once) and counts the
+ * connections of the path which gave each distance. A count reaching the
+ * number of vertices means a negative cycle.
+ *
+ * rounds works in synchronous rounds: the neighbours of the vertices changed
+ * in previous round are collected and each of them takes the best distance
+ * over its incoming connections. Both steps are parallel and each vertex is
+ * written by one task only. A change in round n means a negative cycle (a
+ * path has at most n-1 connections).
+ *
+ * A negative cycle is reported as the cycle of the predecessor graph (any
+ * such cycle is negative). It may appear some relaxations later than the
+ * detection, then the search goes on until it does.
+ *
+ * @author jstar
+ */
+final class BellmanFord {
+
+    private BellmanFord() {
+    }
+
+    /**
+     * @return distances (indexed by rows of g) and predecessors (rows, -1 for none)
+     * @throws NegativeCycleException if a negative cycle is reachable from the source
+     */
+    static SingleSourceGraphPaths spfa(CompactGraph g, int source) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        double[] d = new double[n];
+        int[] p = new int[n];
+        int[] len = new int[n];  // connections on the path which gave d
+        boolean[] queued = new boolean[n];
+        Arrays.fill(d, Double.POSITIVE_INFINITY);
+        Arrays.fill(p, -1);
+
+        int[] queue = new int[n];  // cyclic, each vertex at most once
+        int head = 0;
+        int size = 1;
+        int s = g.indexOf(source);
+        d[s] = 0.0;
+        queue[0] = s;
+        queued[s] = true;
+        while (size > 0) {
+            int u = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            size--;
+            queued[u] = false;
+            double du = d[u];
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                double x = du + wgt[k];
+                if (x < d[v]) {
+                    d[v] = x;
+                    p[v] = u;
+                    len[v] = len[u] + 1;
+                    if (len[v] >= n) {
+                        int[] cycle = findCycle(p);
+                        if (cycle != null) {
+                            throw new NegativeCycleException(toPath(g, cycle));
+                        }
+                        Arrays.fill(len, 0);  // not in the predecessors yet, count again
+                    }
+                    if (!queued[v]) {
+                        queued[v] = true;
+                        queue[(head + size) % n] = v;
+                        size++;
+                    }
+                }
+            }
+        }
+        return new SingleSourceGraphPaths(d, p);
+    }
+
+    /**
+     * Parallel rounds run in given pool.
+     *
+     * @return distances (indexed by rows of g) and predecessors (rows, -1 for none)
+     * @throws NegativeCycleException if a negative cycle is reachable from the source
+     */
+    static SingleSourceGraphPaths rounds(CompactGraph g, int source, ForkJoinPool pool) {
+        int n = g.getNumVertices();
+        double[] d = new double[n];
+        int[] p = new int[n];
+        Arrays.fill(d, Double.POSITIVE_INFINITY);
+        Arrays.fill(p, -1);
+        int s = g.indexOf(source);
+        d[s] = 0.0;
+        int[] cycle = pool.submit(() -> rounds(g, s, d, p)).join();
+        if (cycle != null) {
+            throw new NegativeCycleException(toPath(g, cycle));
+        }
+        return new SingleSourceGraphPaths(d, p);
+    }
+
+    // returns negative cycle or null
+    private static int[] rounds(CompactGraph g, int s, double[] d, int[] p) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        CompactGraph r = g.reverse();
+        int[] roff = r.offsets();
+        int[] rtgt = r.targets();
+        double[] rwgt = r.weights();
+        double[] nd = new double[n];
+        int[] np = new int[n];
+        AtomicIntegerArray collected = new AtomicIntegerArray(n);  // round in which vertex was collected
+
+        int[] changed = {s};
+        for (int round = 1; changed.length > 0; round++) {
+            if (round > n) {  // round n still changed something
+                int[] cycle = findCycle(p);
+                if (cycle != null) {
+                    return cycle;
+                }
+            }
+            int rnd = round;
+            int[] candidates = IntStream.of(changed).parallel()
+                    .flatMap(u -> IntStream.range(off[u], off[u + 1]).map(k -> tgt[k]))
+                    .filter(v -> collected.getAndSet(v, rnd) != rnd)
+                    .toArray();
+            changed = IntStream.of(candidates).parallel().filter(v -> {
+                double best = d[v];
+                int from = -1;
+                for (int k = roff[v]; k < roff[v + 1]; k++) {
+                    double x = d[rtgt[k]] + rwgt[k];
+                    if (x < best) {
+                        best = x;
+                        from = rtgt[k];
+                    }
+                }
+                nd[v] = best;
+                np[v] = from;
+                return from >= 0;
+            }).toArray();
+            IntStream.of(changed).parallel().forEach(v -> {
+                d[v] = nd[v];
+                p[v] = np[v];
+            });
+        }
+        return null;
+    }
+
+    // a cycle of predecessors: v0, v1, ..., v0 in order of the connections, or null
+    private static int[] findCycle(int[] p) {
+        int n = p.length;
+        int[] walk = new int[n];  // 1 + vertex which started the walk that visited it
+        for (int i = 0; i < n; i++) {
+            int x = i;
+            while (x >= 0 && walk[x] == 0) {
+                walk[x] = i + 1;
+                x = p[x];
+            }
+            if (x >= 0 && walk[x] == i + 1) {
+                int len = 1;
+                for (int y = p[x]; y != x; y = p[y]) {
+                    len++;
+                }
+                int[] cycle = new int[len + 1];
+                cycle[0] = cycle[len] = x;
+                for (int y = p[x], k = len - 1; y != x; y = p[y], k--) {
+                    cycle[k] = y;
+                }
+                return cycle;
+            }
+        }
+        return null;
+    }
+
+    private static GraphPath toPath(CompactGraph g, int[] cycle) {
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        double weight = 0.0;
+        int[] vertices = new int[cycle.length];
+        for (int i = 0; i < cycle.length; i++) {
+            vertices[i] = g.getVertexIndex().toId(cycle[i]);
+            if (i > 0) {
+                double w = Double.POSITIVE_INFINITY;
+                for (int k = off[cycle[i - 1]]; k < off[cycle[i - 1] + 1]; k++) {
+                    if (tgt[k] == cycle[i]) {
+                        w = Math.min(w, wgt[k]);
+                    }
+                }
+                weight += w;
+            }
+        }
+        return new GraphPath(vertices[0], vertices[0], weight, vertices, 0);
+    }
+}
@@ -0,0 +1,90 @@
+package graphs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory outside of the Java heap (direct or mapped from a file) accessed by
+ * long indices, so it is not limited to 2^31 elements like arrays and
+ * ByteBuffers. The memory is split into ByteBuffers of CHUNK bytes; an
+ * element never crosses the border of a chunk, as CHUNK is a multiple of
+ * the element sizes.
+ *
+ * @author jstar
+ */
+final class BigBuffer {
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK = 1L << CHUNK_BITS;
+    private static final long MASK = CHUNK - 1;
+
+    private final ByteBuffer[] chunks;
+    private final long size;  // bytes
+
+    private BigBuffer(ByteBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * @return zeroed direct memory of given size (in bytes)
+     */
+    static BigBuffer allocate(long bytes) {
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + CHUNK - 1) >>> CHUNK_BITS)];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = ByteBuffer.allocateDirect((int) Math.min(CHUNK, bytes - c * CHUNK)).order(ByteOrder.nativeOrder());
+        }
+        return new BigBuffer(chunks, bytes);
+    }
+
+    /**
+     * @return read-only little endian view of the part of the file
+     */
+    static BigBuffer map(FileChannel ch, long position, long bytes) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + CHUNK - 1) >>> CHUNK_BITS)];
+        for (int c = 0; c < chunks.length; c++) {
+            long length = Math.min(CHUNK, bytes - c * CHUNK);
+            chunks[c] = ch.map(FileChannel.MapMode.READ_ONLY, position + c * CHUNK, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new BigBuffer(chunks, bytes);
+    }
+
+    /**
+     * @return size in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    int getInt(long i) {
+        long b = i << 2;
+        return chunks[(int) (b >>> CHUNK_BITS)].getInt((int) (b & MASK));
+    }
+
+    long getLong(long i) {
+        long b = i << 3;
+        return chunks[(int) (b >>> CHUNK_BITS)].getLong((int) (b & MASK));
+    }
+
+    double getDouble(long i) {
+        long b = i << 3;
+        return chunks[(int) (b >>> CHUNK_BITS)].getDouble((int) (b & MASK));
+    }
+
+    void putInt(long i, int v) {
+        long b = i << 2;
+        chunks[(int) (b >>> CHUNK_BITS)].putInt((int) (b & MASK), v);
+    }
+
+    void putLong(long i, long v) {
+        long b = i << 3;
+        chunks[(int) (b >>> CHUNK_BITS)].putLong((int) (b & MASK), v);
+    }
+
+    void putDouble(long i, double v) {
+        long b = i << 3;
+        chunks[(int) (b >>> CHUNK_BITS)].putDouble((int) (b & MASK), v);
+    }
+}
@@ -0,0 +1,335 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * GraphBuilder collecting edges in primitive arrays, intended for big graphs.
+ *
+ * Edges are only appended to the buffers (no Edge objects, no hashing) and
+ * the graph is created by freeze(), which sorts the connections by source
+ * with counting (radix) sort and produces CompactGraph. Parallel edges may be
+ * kept or merged (see ParallelEdges).
+ *
+ * Queries like hasEdge have to scan all the buffered edges - the builder is
+ * not meant for building graphs with many such queries.
+ *
+ * @author jstar
+ */
+public class BulkGraphBuilder implements GraphBuilder {
+
+    /**
+     * Treatment of parallel edges (the same pair of vertices) by freeze().
+     */
+    public enum ParallelEdges {
+        KEEP,  // all are kept
+        FIRST, // the first added is kept
+        MIN,   // one connection with the minimal weight
+        MAX,   // one connection with the maximal weight
+        SUM    // one connection with sum of the weights
+    }
+
+    private final boolean directed;
+    private final ParallelEdges parallelEdges;
+
+    private int size;
+    private int[] src = new int[0];
+    private int[] dst = new int[0];
+    private double[] w = new double[0];
+
+    private int numVertices;   // added by addVertex
+    private int[] vertices = new int[0];
+    private int nextVertexNo = 0;
+
+    private HashMap<Integer, String> labels;
+
+    /**
+     * Creates builder of undirected graph which keeps parallel edges.
+     */
+    public BulkGraphBuilder() {
+        this(false, ParallelEdges.KEEP);
+    }
+
+    /**
+     * @param directed - if false each edge is stored in both directions
+     * @param parallelEdges - what to do with parallel edges
+     */
+    public BulkGraphBuilder(boolean directed, ParallelEdges parallelEdges) {
+        this.directed = directed;
+        this.parallelEdges = parallelEdges;
+    }
+
+    /**
+     * @return the number of buffered edges
+     */
+    public int getNumEdges() {
+        return size;
+    }
+
+    /**
+     * Makes room for given number of additional edges.
+     */
+    public void ensureCapacity(int moreEdges) {
+        long needed = (long) size + moreEdges;
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("BulkGraphBuilder: too many edges (" + needed + ")!");
+        }
+        if (needed > src.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, src.length + (src.length >> 1) + 16L));
+            src = Arrays.copyOf(src, capacity);
+            dst = Arrays.copyOf(dst, capacity);
+            w = Arrays.copyOf(w, capacity);
+        }
+    }
+
+    /**
+     * Adds edges src[i]-dst[i] with weights w[i].
+     *
+     * @param w - weights, if null all edges get weight 1
+     */
+    public void addEdges(int[] src, int[] dst, double[] w) {
+        if (src.length != dst.length || w != null && w.length != src.length) {
+            throw new IllegalArgumentException("BulkGraphBuilder.addEdges: arrays of different lengths!");
+        }
+        ensureCapacity(src.length);
+        System.arraycopy(src, 0, this.src, size, src.length);
+        System.arraycopy(dst, 0, this.dst, size, dst.length);
+        if (w == null) {
+            Arrays.fill(this.w, size, size + src.length, 1.0);
+        } else {
+            System.arraycopy(w, 0, this.w, size, w.length);
+        }
+        for (int i = 0; i < src.length; i++) {
+            nextVertexNo = Math.max(nextVertexNo, Math.max(src[i], dst[i]) + 1);
+        }
+        size += src.length;
+    }
+
+    @Override
+    public void addVertex() {
+        addVertex(nextVertexNo);
+    }
+
+    @Override
+    public void addVertex(int number) {
+        if (numVertices == vertices.length) {
+            vertices = Arrays.copyOf(vertices, numVertices + (numVertices >> 1) + 16);
+        }
+        vertices[numVertices++] = number;
+        nextVertexNo = Math.max(nextVertexNo, number + 1);
+    }
+
+    /**
+     * Scans all buffered edges.
+     */
+    @Override
+    public boolean hasEdge(int nodeA, int nodeB) {
+        for (int i = 0; i < size; i++) {
+            if (src[i] == nodeA && dst[i] == nodeB || !directed && src[i] == nodeB && dst[i] == nodeA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void addEdge(int first, int second) {
+        addEdge(first, second, 1.0);
+    }
+
+    @Override
+    public void addEdge(int first, int second, double weight) {
+        ensureCapacity(1);
+        src[size] = first;
+        dst[size] = second;
+        w[size++] = weight;
+        nextVertexNo = Math.max(nextVertexNo, Math.max(first, second) + 1);
+    }
+
+    @Override
+    public void addEdge(Edge e) {
+        addEdge(e.getVertexA(), e.getVertexB(), e.getWeight());
+    }
+
+    /**
+     * Adds all vertices and connections of g. If both the builder and g are
+     * undirected each edge v-u of g is added once (for v &lt;= u), as g keeps
+     * both directions. Connections of directed g are all added.
+     */
+    @Override
+    public void addGraph(Graph g) {
+        boolean both = !directed && !g.isDirected();
+        for (Integer v : g.getVerticesNumbers()) {
+            addVertex(v);
+            g.forEachNeighbor(v, (u, weight) -> {
+                if (!both || v <= u) {
+                    addEdge(v, u, weight);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void setVertexLabel(int n, String label) {
+        if (labels == null) {
+            labels = new HashMap<>();
+        }
+        labels.put(n, label);
+    }
+
+    /**
+     * Same as freeze().
+     */
+    @Override
+    public Graph getGraph() {
+        return freeze();
+    }
+
+    /**
+     * Creates the graph and empties the builder (the buffers are released
+     * as soon as possible to limit the memory needed).
+     *
+     * @return the graph, rows are sorted by neighbours unless parallel edges are kept
+     */
+    public CompactGraph freeze() {
+        VertexIndex index = VertexIndex.covering(new int[][]{src, dst, vertices}, new int[]{size, size, numVertices});
+        int n = index.size();
+        int m = size;
+        // connections as row indices, for undirected graph each edge (except loops) goes in both directions
+        long total = m;
+        for (int i = 0; i < m; i++) {
+            src[i] = index.toIndex(src[i]);
+            dst[i] = index.toIndex(dst[i]);
+            if (!directed && src[i] != dst[i]) {
+                total++;
+            }
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("BulkGraphBuilder: too many connections (" + total + ")!");
+        }
+        String[] rowLabels = null;
+        if (labels != null) {
+            rowLabels = new String[n];
+            for (int i = 0; i < n; i++) {
+                rowLabels[i] = labels.get(index.toId(i));
+            }
+        }
+        int[] s = src, d = dst;
+        double[] ws = w;
+        clear();
+
+        int[] offsets, targets;
+        double[] weights;
+        if (parallelEdges == ParallelEdges.KEEP) {
+            // counting sort by source, order of the edges is kept
+            offsets = countRows(s, d, m, n, true);
+            targets = new int[(int) total];
+            weights = new double[(int) total];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < m; i++) {
+                int k = next[s[i]]++;
+                targets[k] = d[i];
+                weights[k] = ws[i];
+                if (!directed && s[i] != d[i]) {
+                    k = next[d[i]]++;
+                    targets[k] = s[i];
+                    weights[k] = ws[i];
+                }
+            }
+        } else {
+            // two passes of LSD radix sort: by target, then (stable) by source
+            int[] byTarget = countRows(s, d, m, n, false);
+            int[] next = Arrays.copyOf(byTarget, n);
+            int[] sources = new int[(int) total];
+            double[] sortedWeights = new double[(int) total];
+            for (int i = 0; i < m; i++) {
+                int k = next[d[i]]++;
+                sources[k] = s[i];
+                sortedWeights[k] = ws[i];
+                if (!directed && s[i] != d[i]) {
+                    k = next[s[i]]++;
+                    sources[k] = d[i];
+                    sortedWeights[k] = ws[i];
+                }
+            }
+            s = d = null;  // input is not needed any more
+            ws = null;
+            offsets = countRows(sources, null, (int) total, n, false);
+            targets = new int[(int) total];
+            weights = new double[(int) total];
+            next = Arrays.copyOf(offsets, n);
+            for (int t = 0; t < n; t++) {
+                for (int k = byTarget[t]; k < byTarget[t + 1]; k++) {
+                    int slot = next[sources[k]]++;
+                    targets[slot] = t;
+                    weights[slot] = sortedWeights[k];
+                }
+            }
+            int merged = mergeParallel(offsets, targets, weights);
+            if (merged < targets.length) {
+                targets = Arrays.copyOf(targets, merged);
+                weights = Arrays.copyOf(weights, merged);
+            }
+        }
+        return new CompactGraph(index, offsets, targets, weights, rowLabels, directed);
+    }
+
+    // row offsets of connections counted by first ends (or only by s if d == null)
+    private int[] countRows(int[] s, int[] d, int m, int n, boolean bySource) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            if (d == null) {
+                offsets[s[i] + 1]++;
+            } else {
+                offsets[(bySource ? s[i] : d[i]) + 1]++;
+                if (!directed && s[i] != d[i]) {
+                    offsets[(bySource ? d[i] : s[i]) + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return offsets;
+    }
+
+    // merges neighbouring equal targets in sorted rows, updates offsets and returns new number of connections
+    private int mergeParallel(int[] offsets, int[] targets, double[] weights) {
+        int out = 0;
+        int start = 0;
+        for (int i = 0; i < offsets.length - 1; i++) {
+            int end = offsets[i + 1];
+            for (int k = start; k < end; k++) {
+                if (k > start && targets[k] == targets[out - 1]) {
+                    switch (parallelEdges) {
+                        case MIN ->
+                            weights[out - 1] = Math.min(weights[out - 1], weights[k]);
+                        case MAX ->
+                            weights[out - 1] = Math.max(weights[out - 1], weights[k]);
+                        case SUM ->
+                            weights[out - 1] += weights[k];
+                        default -> {
+                        }
+                    }
+                } else {
+                    targets[out] = targets[k];
+                    weights[out++] = weights[k];
+                }
+            }
+            start = end;
+            offsets[i + 1] = out;
+        }
+        return out;
+    }
+
+    private void clear() {
+        size = 0;
+        src = new int[0];
+        dst = new int[0];
+        w = new double[0];
+        numVertices = 0;
+        vertices = new int[0];
+        nextVertexNo = 0;
+        labels = null;
+    }
+}
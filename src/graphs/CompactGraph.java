@@ -0,0 +1,432 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable graph stored as compressed sparse rows (CSR).
+ *
+ * Vertices are kept in ascending order of their numbers; row i describes the
+ * vertex ids[i], its neighbours are targets[offsets[i]..offsets[i+1]-1]
+ * (given as row indices, not vertex numbers) with weights stored at the same
+ * positions in weights. No Edge objects are kept - they are created only when
+ * requested through the Graph interface.
+ *
+ * @author jstar
+ */
+public class CompactGraph implements Graph {
+
+    private final VertexIndex index; // row index <-> vertex number
+    private final int[] ids;         // row index -> vertex number (ascending), shared with index
+    private final int[] offsets;     // row i occupies [offsets[i], offsets[i+1])
+    private final int[] targets;     // row indices of the neighbours
+    private final double[] weights;  // weights of the connections
+    private final String[] labels;   // null if source graph had no labels
+    private final boolean directed;
+    private CompactGraph reversed;   // created when needed (see reverse)
+
+    private final double minEdgeWeight, maxEdgeWeight;
+
+    /**
+     * Makes compact copy of any graph.
+     *
+     * @param g - the graph to copy
+     */
+    public CompactGraph(Graph g) {
+        index = new VertexIndex(g.getVerticesNumbers());
+        ids = index.ids();
+        int n = ids.length;
+        offsets = new int[n + 1];
+        int[] t = new int[Math.max(16, 4 * n)];
+        double[] w = new double[t.length];
+        String[] l = null;
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int v = ids[i];
+            for (Edge e : g.getConnectionsList(v)) {
+                int nb = e.getVertexA() == v ? e.getVertexB() : e.getVertexA();
+                int j = index.toIndex(nb);
+                if (j < 0) {
+                    throw new IllegalArgumentException("CompactGraph: edge " + e + " leads to vertex " + nb + " which is not in the graph!");
+                }
+                if (m == t.length) {
+                    t = Arrays.copyOf(t, 2 * m);
+                    w = Arrays.copyOf(w, 2 * m);
+                }
+                t[m] = j;
+                w[m++] = e.getWeight();
+            }
+            offsets[i + 1] = m;
+            String label = g.getVertexLabel(v);
+            if (label != null) {
+                if (l == null) {
+                    l = new String[n];
+                }
+                l[i] = label;
+            }
+        }
+        targets = Arrays.copyOf(t, m);
+        weights = Arrays.copyOf(w, m);
+        labels = l;
+        directed = g.isDirected();
+        double[] mm = minMax(weights);
+        minEdgeWeight = mm[0];
+        maxEdgeWeight = mm[1];
+    }
+
+    /**
+     * Makes compact copy of the graph created by given builder.
+     *
+     * @param b - the builder
+     * @return immutable copy of b.getGraph()
+     */
+    public static CompactGraph of(GraphBuilder b) {
+        return new CompactGraph(b.getGraph());
+    }
+
+    /**
+     * Wraps ready CSR arrays (they are not copied).
+     *
+     * @param ids - vertex numbers in ascending order
+     * @param offsets - row offsets, length == ids.length+1
+     * @param targets - row indices of neighbours
+     * @param weights - weights of connections
+     */
+    CompactGraph(int[] ids, int[] offsets, int[] targets, double[] weights) {
+        this(new VertexIndex(ids), offsets, targets, weights);
+    }
+
+    /**
+     * Wraps ready CSR arrays (they are not copied).
+     *
+     * @param index - numbers of the vertices
+     * @param offsets - row offsets, length == index.size()+1
+     * @param targets - row indices of neighbours
+     * @param weights - weights of connections
+     */
+    CompactGraph(VertexIndex index, int[] offsets, int[] targets, double[] weights) {
+        this(index, offsets, targets, weights, null);
+    }
+
+    /**
+     * Wraps ready CSR arrays (they are not copied).
+     *
+     * @param index - numbers of the vertices
+     * @param offsets - row offsets, length == index.size()+1
+     * @param targets - row indices of neighbours
+     * @param weights - weights of connections
+     * @param labels - labels of the vertices in row order, may be null
+     */
+    CompactGraph(VertexIndex index, int[] offsets, int[] targets, double[] weights, String[] labels) {
+        this(index, offsets, targets, weights, labels, false);
+    }
+
+    /**
+     * Wraps ready CSR arrays (they are not copied).
+     *
+     * @param index - numbers of the vertices
+     * @param offsets - row offsets, length == index.size()+1
+     * @param targets - row indices of neighbours
+     * @param weights - weights of connections
+     * @param labels - labels of the vertices in row order, may be null
+     * @param directed - true if the connections are not symmetric
+     */
+    CompactGraph(VertexIndex index, int[] offsets, int[] targets, double[] weights, String[] labels, boolean directed) {
+        if (offsets.length != index.size() + 1 || targets.length != weights.length || offsets[index.size()] != targets.length) {
+            throw new IllegalArgumentException("CompactGraph constructor: CSR arrays are not compatible!");
+        }
+        this.index = index;
+        this.ids = index.ids();
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.labels = labels;
+        this.directed = directed;
+        double[] mm = minMax(weights);
+        minEdgeWeight = mm[0];
+        maxEdgeWeight = mm[1];
+    }
+
+    /**
+     * Builds CSR from the list of connections given by vertex numbers.
+     * Connections keep their order within a row. Arrays from and to are
+     * overwritten with row indices.
+     *
+     * @param index - numbers of the vertices, null if the vertices are the ends of the connections
+     * @param from - first ends of the connections
+     * @param to - second ends of the connections
+     * @param w - weights of the connections
+     * @param m - number of connections (used part of the arrays)
+     * @param bothDirections - true if each connection (except loops) should be stored also in the row of its second end
+     */
+    static CompactGraph fromConnections(VertexIndex index, int[] from, int[] to, double[] w, int m, boolean bothDirections) {
+        if (index == null) {
+            index = VertexIndex.covering(new int[][]{from, to}, new int[]{m, m});
+        }
+        int n = index.size();
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < m; k++) {
+            int i = index.toIndex(from[k]);
+            int j = index.toIndex(to[k]);
+            if (i < 0 || j < 0) {
+                throw new IllegalArgumentException("CompactGraph: connection " + from[k] + "-" + to[k] + " leads to vertex which is not in the graph!");
+            }
+            from[k] = i;
+            to[k] = j;
+            offsets[i + 1]++;
+            if (bothDirections && i != j) {
+                offsets[j + 1]++;
+            }
+        }
+        long total = 0;
+        for (int i = 1; i <= n; i++) {
+            total += offsets[i];
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("CompactGraph: too many connections (" + total + ")!");
+            }
+            offsets[i] = (int) total;
+        }
+        int[] targets = new int[(int) total];
+        double[] weights = new double[(int) total];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int k = 0; k < m; k++) {
+            int slot = next[from[k]]++;
+            targets[slot] = to[k];
+            weights[slot] = w[k];
+            if (bothDirections && from[k] != to[k]) {
+                slot = next[to[k]]++;
+                targets[slot] = from[k];
+                weights[slot] = w[k];
+            }
+        }
+        return new CompactGraph(index, offsets, targets, weights, null, !bothDirections);
+    }
+
+    private static double[] minMax(double[] w) {
+        if (w.length == 0) {
+            return new double[]{0.0, 0.0};
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double x : w) {
+            if (x < min) {
+                min = x;
+            }
+            if (x > max) {
+                max = x;
+            }
+        }
+        return new double[]{min, max};
+    }
+
+    /**
+     * @return row index of given vertex or negative value if there is no such vertex
+     */
+    int indexOf(int v) {
+        return index.toIndex(v);
+    }
+
+    /**
+     * @return vertex number stored in given row
+     */
+    int vertexAt(int i) {
+        return ids[i];
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    double[] weights() {
+        return weights;
+    }
+
+    /**
+     * @return the number of stored connections (each undirected edge is stored twice)
+     */
+    public int getNumConnections() {
+        return targets.length;
+    }
+
+    @Override
+    public int getNumVertices() {
+        return ids.length;
+    }
+
+    @Override
+    public int maxVertexNo() {
+        return ids.length == 0 ? 0 : ids[ids.length - 1];
+    }
+
+    @Override
+    public VertexIndex getVertexIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return graph with all connections reversed (this graph if it is undirected)
+     */
+    public CompactGraph reverse() {
+        if (!directed) {
+            return this;
+        }
+        if (reversed == null) {
+            int m = targets.length;
+            int[] from = new int[m];
+            int[] to = new int[m];
+            for (int i = 0; i < ids.length; i++) {
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    from[k] = ids[targets[k]];
+                    to[k] = ids[i];
+                }
+            }
+            reversed = fromConnections(index, from, to, weights, m, false);
+            reversed.reversed = this;
+        }
+        return reversed;
+    }
+
+    /**
+     * @return new graph with all connections of g reversed
+     */
+    static CompactGraph reverseOf(Graph g) {
+        VertexIndex vi = g.getVertexIndex();
+        long m = 0;
+        for (int i = 0; i < vi.size(); i++) {
+            m += g.degree(vi.toId(i));
+        }
+        if (m > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("CompactGraph: too many connections (" + m + ") to reverse!");
+        }
+        int[] from = new int[(int) m];
+        int[] to = new int[from.length];
+        double[] w = new double[from.length];
+        int[] k = {0};
+        for (int i = 0; i < vi.size(); i++) {
+            int u = vi.toId(i);
+            g.forEachNeighbor(u, (v, weight) -> {
+                from[k[0]] = v;
+                to[k[0]] = u;
+                w[k[0]++] = weight;
+            });
+        }
+        return fromConnections(vi, from, to, w, k[0], false);
+    }
+
+    @Override
+    public boolean hasVertex(int number) {
+        return indexOf(number) >= 0;
+    }
+
+    /**
+     * @return read-only view of the vertices numbers
+     */
+    @Override
+    public Set<Integer> getVerticesNumbers() {
+        return index.asSet();
+    }
+
+    @Override
+    public Set<Edge> getAllEdges() {
+        Set<Edge> all = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                all.add(new Edge(ids[i], ids[targets[k]], weights[k]));
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public double getMinEdgeWeight() {
+        return minEdgeWeight;
+    }
+
+    @Override
+    public double getMaxEdgeWeight() {
+        return maxEdgeWeight;
+    }
+
+    @Override
+    public String getVertexLabel(int n) {
+        int i = indexOf(n);
+        return i < 0 || labels == null ? null : labels[i];
+    }
+
+    @Override
+    public Set<Edge> getConnectionsList(int nodeNumber) {
+        Set<Edge> s = new HashSet<>();
+        int i = indexOf(nodeNumber);
+        if (i >= 0) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                s.add(new Edge(nodeNumber, ids[targets[k]], weights[k]));
+            }
+        }
+        return s;
+    }
+
+    @Override
+    public void forEachNeighbor(int vertexNumber, IntDoubleConsumer consumer) {
+        int i = indexOf(vertexNumber);
+        if (i >= 0) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                consumer.accept(ids[targets[k]], weights[k]);
+            }
+        }
+    }
+
+    @Override
+    public int degree(int vertexNumber) {
+        int i = indexOf(vertexNumber);
+        return i < 0 ? 0 : offsets[i + 1] - offsets[i];
+    }
+
+    @Override
+    public Set<Integer> getNeighbours(int vertexNumber) {
+        Set<Integer> neighbours = new HashSet<>();
+        int i = indexOf(vertexNumber);
+        if (i >= 0) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                neighbours.add(ids[targets[k]]);
+            }
+        }
+        return neighbours;
+    }
+
+    @Override
+    public Edge getEdge(int v1, int v2) {
+        int i = indexOf(v1);
+        int j = indexOf(v2);
+        if (i < 0 || j < 0) {
+            return null;
+        }
+        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+            if (targets[k] == j) {
+                return new Edge(v1, v2, weights[k]);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder().append(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            s.append("\n\t").append(ids[i]).append(":");
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                s.append(" ").append(ids[i]).append("-(").append(weights[k]).append(")-").append(ids[targets[k]]);
+            }
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,347 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Graph which may be built and read by many threads at the same time.
+ *
+ * Vertices are registered in ConcurrentHashMap, each of them keeps its
+ * connections in primitive arrays guarded by its own monitor, so threads
+ * adding edges to different vertices do not wait for each other. Stored
+ * connections are never changed (arrays only grow), so readers copy just
+ * the array references under the lock and iterate without it.
+ *
+ * Adding an undirected edge updates two vertices - snapshot() blocks writers
+ * for a moment to see either both or none of the directions and returns
+ * immutable CompactGraph which should be used by the algorithms.
+ *
+ * Parallel edges are kept (there is no check for existing connection).
+ *
+ * @author jstar
+ */
+public class ConcurrentGraph implements Graph, GraphBuilder {
+
+    // connections of one vertex, guarded by its monitor
+    private static final class Adjacency {
+
+        int size;
+        int[] targets = new int[4];
+        double[] weights = new double[4];
+
+        synchronized void add(int target, double weight) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+            }
+            targets[size] = target;
+            weights[size++] = weight;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // targets, weights and size which will not change
+        synchronized View view() {
+            return new View(targets, weights, size);
+        }
+    }
+
+    private record View(int[] targets, double[] weights, int size) {
+
+    }
+
+    private final boolean directed;
+    private final ConcurrentHashMap<Integer, Adjacency> vertices = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> labels = new ConcurrentHashMap<>();
+    private final AtomicInteger nextVertexNo = new AtomicInteger();
+    private final LongAdder numConnections = new LongAdder();
+    private final AtomicLong version = new AtomicLong();
+    private final DoubleAccumulator minEdgeWeight = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator maxEdgeWeight = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private CompactGraph reversed;   // of version reversedVersion, see reverse
+    private long reversedVersion;
+
+    // writers share a gate chosen by their thread, snapshot closes all of them
+    private final ReentrantReadWriteLock[] gates;
+
+    public ConcurrentGraph() {
+        this(false);
+    }
+
+    /**
+     * @param directed - if false each edge is stored in both directions
+     */
+    public ConcurrentGraph(boolean directed) {
+        this.directed = directed;
+        gates = new ReentrantReadWriteLock[Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1];
+        for (int i = 0; i < gates.length; i++) {
+            gates[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private ReentrantReadWriteLock.ReadLock gate() {
+        long id = Thread.currentThread().threadId();
+        return gates[(int) (id ^ (id >>> 16)) & (gates.length - 1)].readLock();
+    }
+
+    private Adjacency adjacency(int v) {
+        Adjacency a = vertices.get(v);
+        if (a == null) {
+            a = vertices.computeIfAbsent(v, k -> new Adjacency());
+            nextVertexNo.accumulateAndGet(v + 1, Math::max);
+            version.incrementAndGet();
+        }
+        return a;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return the number of stored connections (each undirected edge is stored twice)
+     */
+    public long getNumConnections() {
+        return numConnections.sum();
+    }
+
+    /**
+     * Makes immutable copy of the graph. Edges being added while the copy
+     * is made are either fully included or not included at all.
+     *
+     * @return the copy
+     */
+    public CompactGraph snapshot() {
+        Integer[] numbers;
+        View[] views;
+        for (ReentrantReadWriteLock g : gates) {
+            g.writeLock().lock();
+        }
+        try {
+            numbers = vertices.keySet().toArray(new Integer[0]);
+            views = new View[numbers.length];
+            Arrays.sort(numbers);
+            for (int i = 0; i < numbers.length; i++) {
+                views[i] = vertices.get(numbers[i]).view();
+            }
+        } finally {
+            for (ReentrantReadWriteLock g : gates) {
+                g.writeLock().unlock();
+            }
+        }
+        int n = numbers.length;
+        int[] ids = new int[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            ids[i] = numbers[i];
+            total += views[i].size();
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("ConcurrentGraph: too many connections for CompactGraph (" + total + ")!");
+        }
+        VertexIndex index = new VertexIndex(ids);
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[(int) total];
+        double[] weights = new double[(int) total];
+        String[] rowLabels = labels.isEmpty() ? null : new String[n];
+        for (int i = 0; i < n; i++) {
+            View v = views[i];
+            int o = offsets[i];
+            for (int k = 0; k < v.size(); k++) {
+                targets[o + k] = index.toIndex(v.targets()[k]);
+            }
+            System.arraycopy(v.weights(), 0, weights, o, v.size());
+            offsets[i + 1] = o + v.size();
+            if (rowLabels != null) {
+                rowLabels[i] = labels.get(ids[i]);
+            }
+        }
+        return new CompactGraph(index, offsets, targets, weights, rowLabels, directed);
+    }
+
+    @Override
+    public void addVertex() {
+        int n;
+        do {
+            n = nextVertexNo.getAndIncrement();
+        } while (vertices.putIfAbsent(n, new Adjacency()) != null);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void addVertex(int number) {
+        adjacency(number);
+    }
+
+    @Override
+    public boolean hasEdge(int nodeA, int nodeB) {
+        boolean[] found = {false};
+        forEachNeighbor(nodeA, (v, w) -> found[0] |= v == nodeB);
+        return found[0];
+    }
+
+    @Override
+    public void addEdge(int first, int second) {
+        addEdge(first, second, 1.0);
+    }
+
+    @Override
+    public void addEdge(int first, int second, double weight) {
+        Adjacency a = adjacency(first);
+        Adjacency b = adjacency(second);
+        ReentrantReadWriteLock.ReadLock gate = gate();
+        gate.lock();
+        try {
+            a.add(second, weight);
+            if (!directed && first != second) {
+                b.add(first, weight);
+                numConnections.increment();
+            }
+        } finally {
+            gate.unlock();
+        }
+        numConnections.increment();
+        minEdgeWeight.accumulate(weight);
+        maxEdgeWeight.accumulate(weight);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void addEdge(Edge e) {
+        addEdge(e.getVertexA(), e.getVertexB(), e.getWeight());
+    }
+
+    /**
+     * Adds all vertices and connections of g. For undirected graph each
+     * connection v-u of g is added once (for v &lt;= u), as undirected graphs
+     * keep both directions.
+     */
+    @Override
+    public void addGraph(Graph g) {
+        for (Integer v : g.getVerticesNumbers()) {
+            addVertex(v);
+            g.forEachNeighbor(v, (u, weight) -> {
+                if (directed || v <= u) {
+                    addEdge(v, u, weight);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void setVertexLabel(int n, String label) {
+        adjacency(n);
+        labels.put(n, label);
+    }
+
+    /**
+     * @return this graph - use snapshot() to get immutable copy
+     */
+    @Override
+    public Graph getGraph() {
+        return this;
+    }
+
+    @Override
+    public int getNumVertices() {
+        return vertices.size();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return graph with all connections reversed, made again after the
+     * graph changes (this graph if it is undirected)
+     */
+    synchronized Graph reverse() {
+        if (!directed) {
+            return this;
+        }
+        long v = version.get();
+        if (reversed == null || reversedVersion != v) {
+            reversed = snapshot().reverse();
+            reversedVersion = v;
+        }
+        return reversed;
+    }
+
+    @Override
+    public boolean hasVertex(int number) {
+        return vertices.containsKey(number);
+    }
+
+    /**
+     * @return read-only view of the vertices numbers (reflects later changes)
+     */
+    @Override
+    public Set<Integer> getVerticesNumbers() {
+        return Collections.unmodifiableSet(vertices.keySet());
+    }
+
+    @Override
+    public Set<Edge> getAllEdges() {
+        Set<Edge> all = new HashSet<>();
+        for (Integer v : vertices.keySet()) {
+            forEachNeighbor(v, (u, w) -> all.add(new Edge(v, u, w)));
+        }
+        return all;
+    }
+
+    @Override
+    public double getMinEdgeWeight() {
+        return numConnections.sum() == 0 ? 0.0 : minEdgeWeight.get();
+    }
+
+    @Override
+    public double getMaxEdgeWeight() {
+        return numConnections.sum() == 0 ? 0.0 : maxEdgeWeight.get();
+    }
+
+    @Override
+    public String getVertexLabel(int n) {
+        return labels.get(n);
+    }
+
+    @Override
+    public Set<Edge> getConnectionsList(int nodeNumber) {
+        Set<Edge> s = new HashSet<>();
+        forEachNeighbor(nodeNumber, (v, w) -> s.add(new Edge(nodeNumber, v, w)));
+        return s;
+    }
+
+    @Override
+    public void forEachNeighbor(int vertexNumber, IntDoubleConsumer consumer) {
+        Adjacency a = vertices.get(vertexNumber);
+        if (a != null) {
+            View v = a.view();
+            for (int k = 0; k < v.size(); k++) {
+                consumer.accept(v.targets()[k], v.weights()[k]);
+            }
+        }
+    }
+
+    @Override
+    public int degree(int vertexNumber) {
+        Adjacency a = vertices.get(vertexNumber);
+        return a == null ? 0 : a.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentGraph: " + getNumVertices() + " vertices, " + getNumConnections() + " connections";
+    }
+}
@@ -0,0 +1,937 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy (Geisberger et al.) of a static graph with
+ * non-negative weights, answering point-to-point shortest path queries by
+ * searching a small part of the graph.
+ *
+ * Vertices are contracted one by one, in order given by their priorities
+ * (edge difference: shortcuts needed minus connections removed, plus the
+ * number of already contracted neighbours). Contracting v adds shortcut u-x
+ * of weight w(u,v)+w(v,x) unless a witness search (local Dijkstra avoiding
+ * v, limited to WITNESS_LIMIT settled vertices) finds a path not longer.
+ * Priorities are computed by the same searches (with smaller limit), in
+ * parallel at the beginning and for the neighbours of each contracted vertex;
+ * the priority of the vertex taken from the queue is checked once more.
+ *
+ * The result keeps only connections leading to vertices of higher rank (the
+ * order of contraction): "up" connections for the forward search and "down"
+ * connections (reversed, for the backward search). A query is bidirectional
+ * Dijkstra using only these connections, shortcuts on the found path are
+ * unpacked to the original vertices. The hierarchy is immutable, so queries
+ * may be run by many threads, and it may be saved by GraphIO.writeHierarchy.
+ *
+ * @author jstar
+ */
+public final class ContractionHierarchy {
+
+    private static final int WITNESS_LIMIT = 500;     // settled vertices, when contracting
+    private static final int SIMULATION_LIMIT = 20;   // settled vertices, when computing priorities
+
+    private final VertexIndex vi;
+    private final boolean directed;
+    private final int[] rank;
+    // connections u->v with rank[v] > rank[u], stored in row u; middle is the contracted vertex of a shortcut or -1
+    private final int[] upOffsets, upTargets, upMiddles;
+    private final double[] upWeights;
+    // connections v->u with rank[v] > rank[u], stored in row u (target = v)
+    private final int[] downOffsets, downTargets, downMiddles;
+    private final double[] downWeights;
+    private final int numShortcuts;
+
+    private final ConcurrentLinkedQueue<Query> queries = new ConcurrentLinkedQueue<>();  // free ones
+
+    ContractionHierarchy(VertexIndex vi, boolean directed, int[] rank,
+            int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddles,
+            int[] downOffsets, int[] downTargets, double[] downWeights, int[] downMiddles) {
+        this.vi = vi;
+        this.directed = directed;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downTargets = downTargets;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+        int s = 0;
+        for (int m : upMiddles) {
+            s += m >= 0 ? 1 : 0;
+        }
+        for (int m : downMiddles) {
+            s += m >= 0 ? 1 : 0;
+        }
+        numShortcuts = s;
+    }
+
+    /**
+     * Contracts all vertices of g (which is not changed).
+     *
+     * @return the hierarchy
+     */
+    public static ContractionHierarchy of(Graph g) {
+        if (g.getNumVertices() > 0 && g.getMinEdgeWeight() < 0) {
+            throw new IllegalArgumentException("ContractionHierarchy: negative edge weight " + g.getMinEdgeWeight() + "!");
+        }
+        return new Builder(g).build();
+    }
+
+    VertexIndex getVertexIndex() {
+        return vi;
+    }
+
+    int[] ranks() {
+        return rank;
+    }
+
+    int[] upOffsets() {
+        return upOffsets;
+    }
+
+    int[] upTargets() {
+        return upTargets;
+    }
+
+    double[] upWeights() {
+        return upWeights;
+    }
+
+    int[] upMiddles() {
+        return upMiddles;
+    }
+
+    int[] downOffsets() {
+        return downOffsets;
+    }
+
+    int[] downTargets() {
+        return downTargets;
+    }
+
+    double[] downWeights() {
+        return downWeights;
+    }
+
+    int[] downMiddles() {
+        return downMiddles;
+    }
+
+    public int getNumVertices() {
+        return vi.size();
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return the number of added connections (shortcuts), counted in both
+     * searching directions
+     */
+    public int getNumShortcuts() {
+        return numShortcuts;
+    }
+
+    /**
+     * @return position of v in the order of contraction or -1 if there is no v
+     */
+    public int getRank(int v) {
+        int i = vi.toIndex(v);
+        return i < 0 ? -1 : rank[i];
+    }
+
+    /**
+     * @return length of the shortest path (Double.POSITIVE_INFINITY if there
+     * is no path or no such vertices)
+     */
+    public double distance(int source, int target) {
+        int s = vi.toIndex(source);
+        int t = vi.toIndex(target);
+        if (s < 0 || t < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Query q = take();
+        try {
+            q.run(s, t);
+            return q.best;
+        } finally {
+            queries.add(q);
+        }
+    }
+
+    /**
+     * @return the shortest path with shortcuts unpacked into original
+     * vertices (see GraphPath.toList), null if there is no source or target
+     */
+    public GraphPath shortestPath(int source, int target) {
+        int s = vi.toIndex(source);
+        int t = vi.toIndex(target);
+        if (s < 0 || t < 0) {
+            return null;
+        }
+        Query q = take();
+        try {
+            q.run(s, t);
+            if (q.meet < 0) {
+                return new GraphPath(source, target, Double.POSITIVE_INFINITY, new int[0], q.settled);
+            }
+            return new GraphPath(source, target, q.best, q.unpack(s), q.settled);
+        } finally {
+            queries.add(q);
+        }
+    }
+
+    /**
+     * Many-to-many distances by buckets (Knopp et al.): backward searches
+     * from the targets leave (target, distance) in the buckets of the
+     * vertices they settle, then forward searches from the sources scan the
+     * buckets of the vertices they settle. The searches of each kind run in
+     * parallel, each source fills its own row of the table.
+     *
+     * @return the table, Double.POSITIVE_INFINITY for vertices which are not
+     * in the graph
+     */
+    public DistanceTable distanceTable(int[] sources, int[] targets) {
+        if ((long) sources.length * targets.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("ContractionHierarchy: " + sources.length + "x" + targets.length + " table is too big!");
+        }
+        int n = vi.size();
+        int nt = targets.length;
+        int[][] reached = new int[nt][];      // vertices settled by the backward search from j-th target
+        double[][] distances = new double[nt][];
+        IntStream.range(0, nt).parallel().forEach(j -> {
+            int t = vi.toIndex(targets[j]);
+            if (t >= 0) {
+                Query q = take();
+                try {
+                    int count = q.search(1, t);
+                    reached[j] = Arrays.copyOf(q.order, count);
+                    distances[j] = new double[count];
+                    for (int k = 0; k < count; k++) {
+                        distances[j][k] = q.d[1][reached[j][k]];
+                    }
+                } finally {
+                    queries.add(q);
+                }
+            }
+        });
+        long entries = 0;
+        int[] offsets = new int[n + 1];
+        for (int[] r : reached) {
+            if (r != null) {
+                entries += r.length;
+                for (int v : r) {
+                    offsets[v + 1]++;
+                }
+            }
+        }
+        if (entries > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("ContractionHierarchy: too many targets for the buckets (" + nt + ")!");
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] bucketTarget = new int[(int) entries];
+        double[] bucketDistance = new double[(int) entries];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int j = 0; j < nt; j++) {
+            if (reached[j] != null) {
+                for (int k = 0; k < reached[j].length; k++) {
+                    int v = reached[j][k];
+                    bucketTarget[fill[v]] = j;
+                    bucketDistance[fill[v]++] = distances[j][k];
+                }
+            }
+        }
+
+        double[] table = new double[sources.length * nt];
+        Arrays.fill(table, Double.POSITIVE_INFINITY);
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            int s = vi.toIndex(sources[i]);
+            if (s >= 0) {
+                Query q = take();
+                try {
+                    int count = q.search(0, s);
+                    int row = i * nt;
+                    for (int k = 0; k < count; k++) {
+                        int u = q.order[k];
+                        double du = q.d[0][u];
+                        for (int b = offsets[u]; b < offsets[u + 1]; b++) {
+                            double x = du + bucketDistance[b];
+                            if (x < table[row + bucketTarget[b]]) {
+                                table[row + bucketTarget[b]] = x;
+                            }
+                        }
+                    }
+                } finally {
+                    queries.add(q);
+                }
+            }
+        });
+        return new DistanceTable(sources.clone(), targets.clone(), table);
+    }
+
+    // free query state or a new one, to be given back to queries when done
+    private Query take() {
+        Query q = queries.poll();
+        return q == null ? new Query(this) : q;
+    }
+
+    // row of given connection in the up (or down) arrays of vertex u
+    private int find(int[] offsets, int[] targets, int u, int v) {
+        for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+            if (targets[k] == v) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("ContractionHierarchy: connection " + vi.toId(u) + "-" + vi.toId(v) + " of a shortcut is missing!");
+    }
+
+    // state of one query, reused by the queries of the hierarchy (one at a time)
+    private static final class Query {
+
+        final ContractionHierarchy h;
+        final double[][] d;
+        final int[][] parent;   // previous vertex (forward) or next vertex (backward)
+        final int[][] via;      // connection leading to the vertex
+        final int[][] stamp;
+        final int[][] heap;
+        final int[][] pos;
+        final int[] heapSize = new int[2];
+        final int[] order;      // vertices settled by search
+        int generation;
+        double best;
+        int meet;
+        int settled;
+
+        Query(ContractionHierarchy h) {
+            this.h = h;
+            int n = h.vi.size();
+            d = new double[2][n];
+            parent = new int[2][n];
+            via = new int[2][n];
+            stamp = new int[2][n];
+            heap = new int[2][n];
+            pos = new int[2][n];
+            order = new int[n];
+        }
+
+        void nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                for (int[] st : stamp) {
+                    Arrays.fill(st, 0);
+                }
+                generation = 1;
+            }
+            heapSize[0] = heapSize[1] = 0;
+        }
+
+        void run(int s, int t) {
+            nextGeneration();
+            best = Double.POSITIVE_INFINITY;
+            meet = -1;
+            settled = 0;
+            reach(0, s, 0.0, -1, -1);
+            reach(1, t, 0.0, -1, -1);
+            while (true) {
+                double f = heapSize[0] > 0 ? d[0][heap[0][0]] : Double.POSITIVE_INFINITY;
+                double b = heapSize[1] > 0 ? d[1][heap[1][0]] : Double.POSITIVE_INFINITY;
+                if (f >= best && b >= best) {
+                    break;
+                }
+                int dir = f <= b ? 0 : 1;
+                int u = pop(dir);
+                settled++;
+                double du = d[dir][u];
+                int[] off = dir == 0 ? h.upOffsets : h.downOffsets;
+                int[] tgt = dir == 0 ? h.upTargets : h.downTargets;
+                double[] wgt = dir == 0 ? h.upWeights : h.downWeights;
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    reach(dir, tgt[k], du + wgt[k], u, k);
+                }
+            }
+        }
+
+        // whole search in one direction, returns the number of settled vertices (see order)
+        int search(int dir, int s) {
+            nextGeneration();
+            best = Double.POSITIVE_INFINITY;
+            meet = -1;
+            reach(dir, s, 0.0, -1, -1);
+            int count = 0;
+            int[] off = dir == 0 ? h.upOffsets : h.downOffsets;
+            int[] tgt = dir == 0 ? h.upTargets : h.downTargets;
+            double[] wgt = dir == 0 ? h.upWeights : h.downWeights;
+            while (heapSize[dir] > 0) {
+                int u = pop(dir);
+                order[count++] = u;
+                double du = d[dir][u];
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    reach(dir, tgt[k], du + wgt[k], u, k);
+                }
+            }
+            settled = count;
+            return count;
+        }
+
+        // offers distance dv to v in the search dir
+        void reach(int dir, int v, double dv, int from, int k) {
+            double[] dd = d[dir];
+            if (stamp[dir][v] != generation) {
+                stamp[dir][v] = generation;
+                dd[v] = Double.POSITIVE_INFINITY;
+                pos[dir][v] = -1;
+            }
+            if (dv < dd[v]) {
+                dd[v] = dv;
+                parent[dir][v] = from;
+                via[dir][v] = k;
+                if (pos[dir][v] < 0) {
+                    pos[dir][v] = heapSize[dir]++;
+                    heap[dir][pos[dir][v]] = v;
+                }
+                up(dir, pos[dir][v]);
+                int other = 1 - dir;
+                if (stamp[other][v] == generation && dv + d[other][v] < best) {
+                    best = dv + d[other][v];
+                    meet = v;
+                }
+            }
+        }
+
+        void up(int dir, int c) {
+            int[] h = heap[dir];
+            int[] ps = pos[dir];
+            double[] dd = d[dir];
+            int v = h[c];
+            while (c > 0) {
+                int p = (c - 1) / 2;
+                if (dd[h[p]] <= dd[v]) {
+                    break;
+                }
+                h[c] = h[p];
+                ps[h[c]] = c;
+                c = p;
+            }
+            h[c] = v;
+            ps[v] = c;
+        }
+
+        int pop(int dir) {
+            int[] h = heap[dir];
+            int[] ps = pos[dir];
+            double[] dd = d[dir];
+            int ret = h[0];
+            int last = h[--heapSize[dir]];
+            int n = heapSize[dir];
+            int c = 0;
+            while (2 * c + 1 < n) {
+                int child = 2 * c + 1;
+                if (child + 1 < n && dd[h[child + 1]] < dd[h[child]]) {
+                    child++;
+                }
+                if (dd[last] <= dd[h[child]]) {
+                    break;
+                }
+                h[c] = h[child];
+                ps[h[c]] = c;
+                c = child;
+            }
+            if (n > 0) {
+                h[c] = last;
+                ps[last] = c;
+            }
+            ps[ret] = -2;  // settled, never queued again as weights are not negative
+            return ret;
+        }
+
+        // vertex numbers of the path source..meet..target
+        int[] unpack(int s) {
+            // connections of the path as (from, to, middle), source to target
+            List<int[]> hops = new ArrayList<>();
+            for (int v = meet; v != s; v = parent[0][v]) {
+                hops.add(new int[]{parent[0][v], v, h.upMiddles[via[0][v]]});
+            }
+            java.util.Collections.reverse(hops);
+            for (int v = meet; parent[1][v] >= 0; v = parent[1][v]) {
+                hops.add(new int[]{v, parent[1][v], h.downMiddles[via[1][v]]});
+            }
+            IntList path = new IntList();
+            path.add(h.vi.toId(s));
+            int[] stack = new int[64];
+            for (int[] hop : hops) {
+                int top = 0;
+                stack[top++] = hop[0];
+                stack[top++] = hop[1];
+                stack[top++] = hop[2];
+                while (top > 0) {
+                    int mid = stack[--top];
+                    int b = stack[--top];
+                    int a = stack[--top];
+                    if (mid < 0) {
+                        path.add(h.vi.toId(b));
+                        continue;
+                    }
+                    if (top + 6 > stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    // a->mid is stored as down connection of mid, mid->b as its up connection; second half goes first on the stack
+                    stack[top++] = mid;
+                    stack[top++] = b;
+                    stack[top++] = h.upMiddles[h.find(h.upOffsets, h.upTargets, mid, b)];
+                    stack[top++] = a;
+                    stack[top++] = mid;
+                    stack[top++] = h.downMiddles[h.find(h.downOffsets, h.downTargets, mid, a)];
+                }
+            }
+            return Arrays.copyOf(path.data, path.size);
+        }
+    }
+
+    private static final class IntList {
+
+        int size;
+        int[] data = new int[16];
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size + (size >> 1));
+            }
+            data[size++] = v;
+        }
+    }
+
+    // connections of one vertex during contraction
+    private static final class Adjacency {
+
+        int size;
+        int[] targets = new int[4];
+        double[] weights = new double[4];
+        int[] middles = new int[4];
+
+        // adds connection or improves existing one, returns true if anything changed
+        boolean put(int t, double w, int middle) {
+            for (int k = 0; k < size; k++) {
+                if (targets[k] == t) {
+                    if (w < weights[k]) {
+                        weights[k] = w;
+                        middles[k] = middle;
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                middles = Arrays.copyOf(middles, 2 * size);
+            }
+            targets[size] = t;
+            weights[size] = w;
+            middles[size++] = middle;
+            return true;
+        }
+
+        void remove(int t) {
+            for (int k = 0; k < size; k++) {
+                if (targets[k] == t) {
+                    size--;
+                    targets[k] = targets[size];
+                    weights[k] = weights[size];
+                    middles[k] = middles[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Builder {
+
+        final VertexIndex vi;
+        final boolean directed;
+        final int n;
+        final Adjacency[] out, in;
+        final boolean[] contracted;
+        final int[] contractedNeighbours;
+        final double[] priority;
+        final ThreadLocal<Witness> witnesses;
+
+        Builder(Graph g) {
+            vi = g.getVertexIndex();
+            directed = g.isDirected();
+            n = vi.size();
+            out = new Adjacency[n];
+            in = new Adjacency[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = new Adjacency();
+                in[i] = new Adjacency();
+            }
+            for (int i = 0; i < n; i++) {
+                int u = i;
+                g.forEachNeighbor(vi.toId(u), (v, w) -> {
+                    int j = vi.toIndex(v);
+                    if (j != u) {  // loops are never on shortest paths
+                        out[u].put(j, w, -1);
+                        in[j].put(u, w, -1);
+                    }
+                });
+            }
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            priority = new double[n];
+            witnesses = ThreadLocal.withInitial(() -> new Witness(n));
+        }
+
+        ContractionHierarchy build() {
+            IntStream.range(0, n).parallel().forEach(v -> priority[v] = priority(v));
+            int[] rank = new int[n];
+            PriorityHeap queue = new PriorityHeap(priority);
+            for (int v = 0; v < n; v++) {
+                queue.add(v);
+            }
+            int order = 0;
+            IntList neighbours = new IntList();
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                double p = priority(v);
+                if (!queue.isEmpty() && p > priority[queue.peek()]) {
+                    priority[v] = p;  // lazy update: it is not the best any more
+                    queue.add(v);
+                    continue;
+                }
+                contract(v);
+                contracted[v] = true;
+                rank[v] = order++;
+                neighbours.size = 0;
+                for (Adjacency a : new Adjacency[]{out[v], in[v]}) {
+                    for (int k = 0; k < a.size; k++) {
+                        int u = a.targets[k];
+                        if (!contracted[u]) {
+                            contractedNeighbours[u]++;
+                            neighbours.add(u);
+                        }
+                    }
+                }
+                int[] nb = Arrays.copyOf(neighbours.data, neighbours.size);
+                IntStream.of(nb).parallel().distinct().forEach(u -> priority[u] = priority(u));
+                for (int u : nb) {
+                    queue.update(u);
+                }
+            }
+            return toHierarchy(rank);
+        }
+
+        // edge difference plus the number of contracted neighbours
+        double priority(int v) {
+            int removed = 0;
+            for (Adjacency a : new Adjacency[]{out[v], in[v]}) {
+                for (int k = 0; k < a.size; k++) {
+                    removed += contracted[a.targets[k]] ? 0 : 1;
+                }
+            }
+            return shortcuts(v, null) - removed + contractedNeighbours[v];
+        }
+
+        void contract(int v) {
+            List<double[]> added = new ArrayList<>();
+            shortcuts(v, added);
+            for (double[] s : added) {
+                int u = (int) s[0];
+                int x = (int) s[1];
+                if (out[u].put(x, s[2], v)) {
+                    in[x].put(u, s[2], v);
+                }
+            }
+            // connections of v stay (they lead up), the remaining graph forgets v
+            for (int k = 0; k < in[v].size; k++) {
+                out[in[v].targets[k]].remove(v);
+            }
+            for (int k = 0; k < out[v].size; k++) {
+                in[out[v].targets[k]].remove(v);
+            }
+        }
+
+        // counts shortcuts needed to contract v, stores them (u, x, weight) if added != null
+        int shortcuts(int v, List<double[]> added) {
+            Witness witness = witnesses.get();
+            Adjacency vin = in[v];
+            Adjacency vout = out[v];
+            double maxOut = 0;
+            int outs = 0;
+            for (int k = 0; k < vout.size; k++) {
+                if (!contracted[vout.targets[k]]) {
+                    maxOut = Math.max(maxOut, vout.weights[k]);
+                    outs++;
+                }
+            }
+            if (outs == 0) {
+                return 0;
+            }
+            int count = 0;
+            for (int i = 0; i < vin.size; i++) {
+                int u = vin.targets[i];
+                if (contracted[u]) {
+                    continue;
+                }
+                double wu = vin.weights[i];
+                witness.search(this, u, v, wu + maxOut, vout, added == null ? SIMULATION_LIMIT : WITNESS_LIMIT);
+                for (int k = 0; k < vout.size; k++) {
+                    int x = vout.targets[k];
+                    if (x == u || contracted[x]) {
+                        continue;
+                    }
+                    double via = wu + vout.weights[k];
+                    if (witness.distance(x) > via) {
+                        count++;
+                        if (added != null) {
+                            added.add(new double[]{u, x, via});
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        ContractionHierarchy toHierarchy(int[] rank) {
+            int[] upOff = new int[n + 1];
+            int[] downOff = new int[n + 1];
+            for (int u = 0; u < n; u++) {
+                upOff[u + 1] = upOff[u] + higher(out[u], rank, rank[u]);
+                downOff[u + 1] = downOff[u] + higher(in[u], rank, rank[u]);
+            }
+            int[] upT = new int[upOff[n]], upM = new int[upOff[n]];
+            double[] upW = new double[upOff[n]];
+            int[] downT = new int[downOff[n]], downM = new int[downOff[n]];
+            double[] downW = new double[downOff[n]];
+            for (int u = 0; u < n; u++) {
+                copyHigher(out[u], rank, rank[u], upOff[u], upT, upW, upM);
+                copyHigher(in[u], rank, rank[u], downOff[u], downT, downW, downM);
+                out[u] = in[u] = null;
+            }
+            return new ContractionHierarchy(vi, directed, rank, upOff, upT, upW, upM, downOff, downT, downW, downM);
+        }
+
+        private static int higher(Adjacency a, int[] rank, int r) {
+            int c = 0;
+            for (int k = 0; k < a.size; k++) {
+                c += rank[a.targets[k]] > r ? 1 : 0;
+            }
+            return c;
+        }
+
+        private static void copyHigher(Adjacency a, int[] rank, int r, int o, int[] t, double[] w, int[] m) {
+            for (int k = 0; k < a.size; k++) {
+                if (rank[a.targets[k]] > r) {
+                    t[o] = a.targets[k];
+                    w[o] = a.weights[k];
+                    m[o++] = a.middles[k];
+                }
+            }
+        }
+    }
+
+    // local Dijkstra among not contracted vertices, one per thread
+    private static final class Witness {
+
+        final double[] d;
+        final int[] stamp;
+        final int[] targetStamp;
+        final int[] heap;
+        final int[] pos;
+        int size;
+        int generation;
+
+        Witness(int n) {
+            d = new double[n];
+            stamp = new int[n];
+            targetStamp = new int[n];
+            heap = new int[n];
+            pos = new int[n];
+        }
+
+        double distance(int v) {
+            return stamp[v] == generation ? d[v] : Double.POSITIVE_INFINITY;
+        }
+
+        // distances from u avoiding v, exact up to maxDistance (or less if limit of settled vertices is reached)
+        // or until all the targets are settled
+        void search(Builder b, int u, int v, double maxDistance, Adjacency targets, int limit) {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(targetStamp, 0);
+                generation = 1;
+            }
+            int remaining = 0;
+            for (int k = 0; k < targets.size; k++) {
+                int x = targets.targets[k];
+                if (x != u && !b.contracted[x] && targetStamp[x] != generation) {
+                    targetStamp[x] = generation;
+                    remaining++;
+                }
+            }
+            size = 0;
+            offer(u, 0.0);
+            int settled = 0;
+            while (size > 0 && remaining > 0 && settled++ < limit) {
+                int x = poll();
+                double dx = d[x];
+                if (dx > maxDistance) {
+                    break;
+                }
+                if (targetStamp[x] == generation) {
+                    remaining--;
+                }
+                Adjacency a = b.out[x];
+                for (int k = 0; k < a.size; k++) {
+                    int y = a.targets[k];
+                    if (y != v && !b.contracted[y]) {
+                        offer(y, dx + a.weights[k]);
+                    }
+                }
+            }
+        }
+
+        void offer(int x, double dx) {
+            if (stamp[x] != generation) {
+                stamp[x] = generation;
+                d[x] = Double.POSITIVE_INFINITY;
+                pos[x] = -1;
+            }
+            if (dx < d[x]) {
+                d[x] = dx;
+                if (pos[x] == -2) {
+                    return;  // settled
+                }
+                if (pos[x] < 0) {
+                    pos[x] = size++;
+                    heap[pos[x]] = x;
+                }
+                int c = pos[x];
+                while (c > 0) {
+                    int p = (c - 1) / 2;
+                    if (d[heap[p]] <= dx) {
+                        break;
+                    }
+                    heap[c] = heap[p];
+                    pos[heap[c]] = c;
+                    c = p;
+                }
+                heap[c] = x;
+                pos[x] = c;
+            }
+        }
+
+        int poll() {
+            int ret = heap[0];
+            int last = heap[--size];
+            int c = 0;
+            while (2 * c + 1 < size) {
+                int child = 2 * c + 1;
+                if (child + 1 < size && d[heap[child + 1]] < d[heap[child]]) {
+                    child++;
+                }
+                if (d[last] <= d[heap[child]]) {
+                    break;
+                }
+                heap[c] = heap[child];
+                pos[heap[c]] = c;
+                c = child;
+            }
+            if (size > 0) {
+                heap[c] = last;
+                pos[last] = c;
+            }
+            pos[ret] = -2;
+            return ret;
+        }
+    }
+
+    // min-heap of vertices ordered by their priorities, with update of a changed priority
+    private static final class PriorityHeap {
+
+        final double[] key;
+        final int[] heap;
+        final int[] pos;
+        int size;
+
+        PriorityHeap(double[] key) {
+            this.key = key;
+            heap = new int[key.length];
+            pos = new int[key.length];
+            Arrays.fill(pos, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void add(int v) {
+            heap[size] = v;
+            pos[v] = size;
+            up(size++);
+        }
+
+        // restores the order after key[v] was changed (v must be on the heap)
+        void update(int v) {
+            if (pos[v] >= 0) {
+                up(pos[v]);
+                down(pos[v]);
+            }
+        }
+
+        int poll() {
+            int ret = heap[0];
+            pos[ret] = -1;
+            if (--size > 0) {
+                heap[0] = heap[size];
+                pos[heap[0]] = 0;
+                down(0);
+            }
+            return ret;
+        }
+
+        void up(int c) {
+            int v = heap[c];
+            while (c > 0) {
+                int p = (c - 1) / 2;
+                if (key[heap[p]] <= key[v]) {
+                    break;
+                }
+                heap[c] = heap[p];
+                pos[heap[c]] = c;
+                c = p;
+            }
+            heap[c] = v;
+            pos[v] = c;
+        }
+
+        void down(int c) {
+            int v = heap[c];
+            while (2 * c + 1 < size) {
+                int child = 2 * c + 1;
+                if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                    child++;
+                }
+                if (key[v] <= key[heap[child]]) {
+                    break;
+                }
+                heap[c] = heap[child];
+                pos[heap[c]] = c;
+                c = child;
+            }
+            heap[c] = v;
+            pos[v] = c;
+        }
+    }
+}
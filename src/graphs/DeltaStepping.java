@@ -0,0 +1,283 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single source shortest paths by delta-stepping (Meyer, Sanders).
+ *
+ * Vertices are kept in buckets of width delta by their tentative distances.
+ * The first non-empty bucket is processed in phases: light edges (weight not
+ * greater than delta) of all its vertices are relaxed in parallel, which may
+ * put vertices back into the same bucket; when the bucket stays empty the heavy
+ * edges of the vertices removed from it are relaxed once. Only
+ * maxWeight/delta + 2 buckets are needed, as they are used cyclically.
+ *
+ * Distances are kept as bits of doubles in AtomicLongArray - for non-negative
+ * doubles the order of the bits is the order of the numbers, so relaxation is
+ * a compare-and-set loop. Relaxations of big phases are split between the
+ * tasks of the ForkJoinPool, each of them collects the vertices it has
+ * improved and they are put into the buckets by the calling thread.
+ *
+ * Predecessors are found at the end from the final distances (any tight
+ * connection will do), so they need no synchronization.
+ *
+ * @author jstar
+ */
+final class DeltaStepping {
+
+    private static final int PARALLEL_THRESHOLD = 1024; // connections to relax by one task
+
+    private final int[] off;
+    private final int[] tgt;
+    private final double[] wgt;
+    private final double delta;
+    private final ForkJoinPool pool;
+    private final AtomicLongArray dist;
+
+    private final IntList[] buckets;
+    private final int[] frontierStamp;  // phase in which vertex was taken into the frontier
+    private final int[] removedStamp;   // bucket round in which vertex was removed from the bucket
+    private int phase;
+    private int round;
+
+    private DeltaStepping(CompactGraph g, double delta, ForkJoinPool pool) {
+        this.off = g.offsets();
+        this.tgt = g.targets();
+        this.wgt = g.weights();
+        this.delta = delta;
+        this.pool = pool;
+        int n = g.getNumVertices();
+        dist = new AtomicLongArray(n);
+        long inf = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            dist.setPlain(i, inf);
+        }
+        long count = (long) Math.floor(g.getMaxEdgeWeight() / delta) + 2;
+        if (count > 1 << 24) {
+            throw new IllegalArgumentException("DeltaStepping: delta=" + delta + " is too small for max. edge weight " + g.getMaxEdgeWeight() + "!");
+        }
+        buckets = new IntList[(int) count];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList();
+        }
+        frontierStamp = new int[n];
+        removedStamp = new int[n];
+    }
+
+    /**
+     * Delta for which both the number of buckets and the work repeated inside
+     * a bucket stay moderate: max. weight divided by the average degree, but
+     * not less than min. weight (then each light edge leaves its bucket).
+     *
+     * @return delta suitable for g
+     */
+    static double defaultDelta(Graph g) {
+        double min = Math.max(0.0, g.getMinEdgeWeight());
+        double max = g.getMaxEdgeWeight();
+        if (!(max > 0)) {
+            return 1.0;  // no edges or only zero weights - one bucket
+        }
+        long connections = 0;
+        for (int v : g.getVerticesNumbers()) {
+            connections += g.degree(v);
+        }
+        double degree = Math.max(1.0, (double) connections / Math.max(1, g.getNumVertices()));
+        return Math.max(min, max / degree);
+    }
+
+    /**
+     * @return distances (indexed by rows of g) and predecessors (rows, -1 for none)
+     */
+    static SingleSourceGraphPaths run(CompactGraph g, int source, double delta, ForkJoinPool pool) {
+        if (!(delta > 0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("DeltaStepping: delta must be positive, is " + delta + "!");
+        }
+        if (g.getNumConnections() > 0 && g.getMinEdgeWeight() < 0) {
+            throw new IllegalArgumentException("DeltaStepping: negative edge weight " + g.getMinEdgeWeight() + "!");
+        }
+        DeltaStepping ds = new DeltaStepping(g, delta, pool);
+        int s = g.indexOf(source);
+        ds.dist.set(s, Double.doubleToRawLongBits(0.0));
+        ds.buckets[0].add(s);
+        ds.solve();
+        double[] d = new double[g.getNumVertices()];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = Double.longBitsToDouble(ds.dist.getPlain(i));
+        }
+        return new SingleSourceGraphPaths(d, ds.predecessors(d, s));
+    }
+
+    private double dist(int v) {
+        return Double.longBitsToDouble(dist.get(v));
+    }
+
+    private long bucketOf(double d) {
+        return (long) Math.floor(d / delta);
+    }
+
+    private void solve() {
+        IntList removed = new IntList();
+        long current = 0;
+        int empty = 0;  // empty buckets in a row, all are empty when it reaches buckets.length
+        while (empty < buckets.length) {
+            IntList bucket = buckets[(int) (current % buckets.length)];
+            if (bucket.size == 0) {
+                empty++;
+                current++;
+                continue;
+            }
+            empty = 0;
+            round++;
+            removed.size = 0;
+            while (bucket.size > 0) {
+                // the frontier: vertices which really belong to this bucket, each once
+                phase++;
+                int[] frontier = new int[bucket.size];
+                int f = 0;
+                for (int k = 0; k < bucket.size; k++) {
+                    int v = bucket.data[k];
+                    if (frontierStamp[v] != phase && bucketOf(dist(v)) == current) {
+                        frontierStamp[v] = phase;
+                        frontier[f++] = v;
+                        if (removedStamp[v] != round) {
+                            removedStamp[v] = round;
+                            removed.add(v);
+                        }
+                    }
+                }
+                bucket.size = 0;
+                relax(frontier, f, true);
+            }
+            relax(removed.data, removed.size, false);
+            current++;
+        }
+    }
+
+    // relaxes light or heavy connections of given vertices and puts the improved ones into their buckets
+    private void relax(int[] vertices, int count, boolean light) {
+        if (count == 0) {
+            return;
+        }
+        long work = 0;
+        for (int k = 0; k < count; k++) {
+            work += off[vertices[k] + 1] - off[vertices[k]];
+        }
+        List<IntList> improved = new ArrayList<>();
+        if (work <= PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            improved.add(relax(vertices, 0, count, light));
+        } else {
+            int tasks = (int) Math.min(4L * pool.getParallelism(), work / PARALLEL_THRESHOLD + 1);
+            List<Callable<IntList>> jobs = new ArrayList<>(tasks);
+            for (int t = 0; t < tasks; t++) {
+                int from = (int) ((long) count * t / tasks);
+                int to = (int) ((long) count * (t + 1) / tasks);
+                jobs.add(() -> relax(vertices, from, to, light));
+            }
+            try {
+                for (Future<IntList> r : pool.invokeAll(jobs)) {
+                    improved.add(r.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("DeltaStepping: interrupted!");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("DeltaStepping: " + e.getCause(), e.getCause());
+            }
+        }
+        for (IntList l : improved) {
+            for (int k = 0; k < l.size; k++) {
+                int v = l.data[k];
+                buckets[(int) (bucketOf(dist(v)) % buckets.length)].add(v);
+            }
+        }
+    }
+
+    private IntList relax(int[] vertices, int from, int to, boolean light) {
+        IntList improved = new IntList();
+        for (int i = from; i < to; i++) {
+            int u = vertices[i];
+            double du = dist(u);
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                double w = wgt[k];
+                if ((w <= delta) == light) {
+                    int v = tgt[k];
+                    long nd = Double.doubleToRawLongBits(du + w);
+                    long old = dist.get(v);
+                    while (nd < old) {
+                        long seen = dist.compareAndExchange(v, old, nd);
+                        if (seen == old) {
+                            improved.add(v);
+                            break;
+                        }
+                        old = seen;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // for each reached vertex a neighbour from which it gets its distance
+    private int[] predecessors(double[] d, int s) {
+        int n = d.length;
+        int[] p = new int[n];
+        Arrays.fill(p, -1);
+        // strictly closer neighbours first - they can not form a cycle
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+            double du = d[u];
+            if (du != Double.POSITIVE_INFINITY) {
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    int v = tgt[k];
+                    if (du < d[v] && du + wgt[k] == d[v]) {
+                        p[v] = u;  // any of the racing writers is fine
+                    }
+                }
+            }
+        })).join();
+        boolean missing = false;
+        for (int v = 0; v < n && !missing; v++) {
+            missing = v != s && p[v] < 0 && d[v] != Double.POSITIVE_INFINITY;
+        }
+        if (missing) {
+            // vertices reached by zero-weight connections only: search from the others
+            IntList queue = new IntList();
+            for (int v = 0; v < n; v++) {
+                if (v == s || p[v] >= 0) {
+                    queue.add(v);
+                }
+            }
+            for (int head = 0; head < queue.size; head++) {
+                int u = queue.data[head];
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    int v = tgt[k];
+                    if (v != s && p[v] < 0 && d[u] + wgt[k] == d[v]) {
+                        p[v] = u;
+                        queue.add(v);
+                    }
+                }
+            }
+        }
+        return p;
+    }
+
+    private static final class IntList {
+
+        int size;
+        int[] data = new int[16];
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size + (size >> 1));
+            }
+            data[size++] = v;
+        }
+    }
+}
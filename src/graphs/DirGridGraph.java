@@ -1,7 +1,5 @@
 package graphs;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Random;
 
 /**
@@ -10,32 +8,27 @@ import java.util.Random;
  */
 public class DirGridGraph extends GridGraph {
 
-    private int numColumns;
-    private int numRows;
     private static final Random rand = new Random();
 
     public DirGridGraph(int nC, int nR, double wMin, double wMax, double avgEdgesPerNode) {
-        numColumns = nC;
-        numRows = nR;
-        nextVertexNo = numColumns * numRows;
+        super(nC, nR, true);
+        int numRows = getNumRows();
+        int nMax = getNumVertices();
         double dW = wMax - wMin;
-        connectLists = new HashMap<>();
-        for (int c = 0; c < numColumns; c++) {
-            for (int r = 0; r < numRows; r++) {
+        for (int c = 0; c < nC; c++) {
+            for (int r = 0; r < nR; r++) {
                 int nn = c * numRows + r;
-                connectLists.put(nn, new HashSet<>());
-                HashSet<Edge> list = connectLists.get(nn);
                 if (nn >= numRows && rand.nextDouble() < avgEdgesPerNode / 4) {
-                    list.add(new Edge(nn, nn - getNumRows(), wMin + dW * rand.nextDouble()));
+                    setLatticeWeight(nn, nn - numRows, wMin + dW * rand.nextDouble());
                 }
-                if (nn < nextVertexNo - numRows && rand.nextDouble() < avgEdgesPerNode / 4) {
-                    list.add(new Edge(nn, nn + getNumRows(), wMin + dW * rand.nextDouble()));
+                if (nn < nMax - numRows && rand.nextDouble() < avgEdgesPerNode / 4) {
+                    setLatticeWeight(nn, nn + numRows, wMin + dW * rand.nextDouble());
                 }
                 if (r > 0 && rand.nextDouble() < avgEdgesPerNode / 4) {
-                    list.add(new Edge(nn, nn - 1, wMin + dW * rand.nextDouble()));
+                    setLatticeWeight(nn, nn - 1, wMin + dW * rand.nextDouble());
                 }
                 if (r < numRows - 1 && rand.nextDouble() < avgEdgesPerNode / 4) {
-                    list.add(new Edge(nn, nn + 1, wMin + dW * rand.nextDouble()));
+                    setLatticeWeight(nn, nn + 1, wMin + dW * rand.nextDouble());
                 }
             }
         }
@@ -0,0 +1,69 @@
+package graphs;
+
+/**
+ * Lengths of the shortest paths from each of the sources to each of the
+ * targets, kept in one row-major array: distance from i-th source to j-th
+ * target is at i * getNumTargets() + j. Double.POSITIVE_INFINITY marks a
+ * target which can not be reached (or a vertex which is not in the graph).
+ *
+ * @author jstar
+ */
+public final class DistanceTable {
+
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] distances;
+
+    public DistanceTable(int[] sources, int[] targets, double[] distances) {
+        if (distances.length != (long) sources.length * targets.length) {
+            throw new IllegalArgumentException("DistanceTable: " + distances.length + " distances do not fit " + sources.length + "x" + targets.length + " table!");
+        }
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = distances;
+    }
+
+    public int getNumSources() {
+        return sources.length;
+    }
+
+    public int getNumTargets() {
+        return targets.length;
+    }
+
+    /**
+     * @return vertex number of i-th source
+     */
+    public int getSource(int i) {
+        return sources[i];
+    }
+
+    /**
+     * @return vertex number of j-th target
+     */
+    public int getTarget(int j) {
+        return targets[j];
+    }
+
+    /**
+     * @return distance from i-th source to j-th target
+     */
+    public double get(int i, int j) {
+        return distances[i * targets.length + j];
+    }
+
+    /**
+     * @return the table itself (not a copy), row after row
+     */
+    public double[] getDistances() {
+        return distances;
+    }
+
+    int[] sources() {
+        return sources;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+}
@@ -0,0 +1,458 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shortest paths from a few sources kept up to date while connections are
+ * added, removed or change their weights (Ramalingam and Reps).
+ *
+ * A connection which gets lighter is relaxed and the improvement is
+ * propagated as in Dijkstra, starting from its end. A connection of the
+ * shortest path tree which gets heavier (or disappears) invalidates the
+ * subtree below it: each vertex of the subtree takes the best distance
+ * offered by its neighbours outside the subtree and Dijkstra restricted to
+ * the subtree finishes the job. The rest of the tree is not touched.
+ *
+ * The connections of the graph are copied by the constructor and changed
+ * through setWeight and removeEdge (parallel connections are merged into the
+ * lightest one). Later changes of the graph itself are not followed - for
+ * ModifiableGraph call setWeight here together with Edge.setWeight. The
+ * vertices are fixed, weights must not be negative. Not thread safe.
+ *
+ * @author jstar
+ */
+public class DynamicShortestPaths {
+
+    private final VertexIndex vi;
+    private final boolean directed;
+    private final Arcs[] out;
+    private final Arcs[] in;  // same as out for undirected graphs
+    private final Map<Integer, Tree> trees = new LinkedHashMap<>();
+
+    // memory of the updates, shared by all trees
+    private final int[] heap;
+    private final int[] pos;   // -1 if not on the heap
+    private final int[] subtree;
+    private final int[] mark;  // subtree[k] are marked with the current update number
+    private int heapSize;
+    private int stamp;
+    private double[] key;       // d of the tree being repaired
+
+    private long updates;
+    private long affected, scanned;  // work counters
+    private long lastAffected, lastScanned;
+    private long totalAffected, totalScanned;
+
+    // connections of one vertex
+    private static final class Arcs {
+
+        int size;
+        int[] to = new int[4];
+        double[] w = new double[4];
+
+        int find(int v) {
+            for (int k = 0; k < size; k++) {
+                if (to[k] == v) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        void set(int v, double weight) {
+            int k = find(v);
+            if (k < 0) {
+                if (size == to.length) {
+                    to = Arrays.copyOf(to, 2 * size);
+                    w = Arrays.copyOf(w, 2 * size);
+                }
+                k = size++;
+                to[k] = v;
+            }
+            w[k] = weight;
+        }
+
+        void remove(int v) {
+            int k = find(v);
+            if (k >= 0) {
+                size--;
+                to[k] = to[size];
+                w[k] = w[size];
+            }
+        }
+    }
+
+    // shortest paths from one source
+    private static final class Tree {
+
+        final int source;  // index
+        final double[] d;
+        final int[] p;
+
+        Tree(int source, int n) {
+            this.source = source;
+            d = new double[n];
+            p = new int[n];
+        }
+    }
+
+    public DynamicShortestPaths(Graph g) {
+        vi = g.getVertexIndex();
+        directed = g.isDirected();
+        int n = vi.size();
+        out = new Arcs[n];
+        in = directed ? new Arcs[n] : out;
+        for (int i = 0; i < n; i++) {
+            out[i] = new Arcs();
+            if (directed) {
+                in[i] = new Arcs();
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int from = i;
+            g.forEachNeighbor(vi.toId(i), (v, w) -> {
+                if (w < 0) {
+                    throw new IllegalArgumentException("DynamicShortestPaths: negative weight " + w + " of connection " + vi.toId(from) + "-" + v + "!");
+                }
+                int to = vi.toIndex(v);
+                int k = out[from].find(to);
+                if (k < 0 || w < out[from].w[k]) {
+                    out[from].set(to, w);
+                    if (directed) {
+                        in[to].set(from, w);
+                    }
+                }
+            });
+        }
+        heap = new int[n];
+        pos = new int[n];
+        subtree = new int[n];
+        mark = new int[n];
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * Computes paths from given source (once) and keeps them up to date.
+     *
+     * @return false if there is no such vertex
+     */
+    public boolean addSource(int source) {
+        int s = vi.toIndex(source);
+        if (s < 0) {
+            return false;
+        }
+        if (!trees.containsKey(source)) {
+            Tree t = new Tree(s, vi.size());
+            Arrays.fill(t.d, Double.POSITIVE_INFINITY);
+            Arrays.fill(t.p, -1);
+            t.d[s] = 0.0;
+            key = t.d;
+            push(s);
+            propagate(t);
+            trees.put(source, t);
+        }
+        return true;
+    }
+
+    public void removeSource(int source) {
+        trees.remove(source);
+    }
+
+    public boolean hasSource(int source) {
+        return trees.containsKey(source);
+    }
+
+    /**
+     * Adds connection a-b or changes its weight.
+     */
+    public void setWeight(int a, int b, double weight) {
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException("DynamicShortestPaths: weight of " + a + "-" + b + " must not be negative, is " + weight + "!");
+        }
+        change(a, b, weight);
+    }
+
+    /**
+     * Removes connection a-b (nothing happens if there is no such one).
+     */
+    public void removeEdge(int a, int b) {
+        change(a, b, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return weight of connection a-b, Double.POSITIVE_INFINITY if there is none
+     */
+    public double getWeight(int a, int b) {
+        int u = index(a);
+        int k = out[u].find(index(b));
+        return k < 0 ? Double.POSITIVE_INFINITY : out[u].w[k];
+    }
+
+    private int index(int v) {
+        int i = vi.toIndex(v);
+        if (i < 0) {
+            throw new IllegalArgumentException("DynamicShortestPaths: there is no vertex " + v + "!");
+        }
+        return i;
+    }
+
+    // infinite weight removes the connection
+    private void change(int a, int b, double weight) {
+        int u = index(a);
+        int v = index(b);
+        double old = getWeight(a, b);
+        if (weight == old) {
+            return;
+        }
+        setArc(u, v, weight);
+        if (!directed && u != v) {
+            setArc(v, u, weight);
+        }
+        updates++;
+        affected = scanned = 0;
+        for (Tree t : trees.values()) {
+            key = t.d;
+            if (weight < old) {
+                decreased(t, u, v, weight);
+                if (!directed) {
+                    decreased(t, v, u, weight);
+                }
+            } else {
+                increased(t, u, v);
+            }
+        }
+        lastAffected = affected;
+        lastScanned = scanned;
+        totalAffected += affected;
+        totalScanned += scanned;
+    }
+
+    private void setArc(int u, int v, double weight) {
+        if (weight == Double.POSITIVE_INFINITY) {
+            out[u].remove(v);
+            if (directed) {
+                in[v].remove(u);
+            }
+        } else {
+            out[u].set(v, weight);
+            if (directed) {
+                in[v].set(u, weight);
+            }
+        }
+    }
+
+    private void decreased(Tree t, int u, int v, double weight) {
+        if (t.d[u] + weight < t.d[v]) {
+            t.d[v] = t.d[u] + weight;
+            t.p[v] = u;
+            push(v);
+            propagate(t);
+        }
+    }
+
+    private void increased(Tree t, int u, int v) {
+        int roots = 0;
+        if (t.p[v] == u) {
+            subtree[roots++] = v;
+        }
+        if (!directed && t.p[u] == v) {
+            subtree[roots++] = u;
+        }
+        if (roots == 0) {
+            return;  // not a connection of the tree
+        }
+        // the subtree: vertices whose tree paths lead through the changed connection
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        int size = 0;
+        for (int r = 0; r < roots; r++) {
+            if (mark[subtree[r]] != stamp) {
+                mark[subtree[r]] = stamp;
+                subtree[size++] = subtree[r];
+            }
+        }
+        for (int k = 0; k < size; k++) {
+            int x = subtree[k];
+            Arcs a = out[x];
+            scanned += a.size;
+            for (int j = 0; j < a.size; j++) {
+                int y = a.to[j];
+                if (t.p[y] == x && mark[y] != stamp) {
+                    mark[y] = stamp;
+                    subtree[size++] = y;
+                }
+            }
+        }
+        // the best way into the subtree from outside
+        for (int k = 0; k < size; k++) {
+            int y = subtree[k];
+            double best = Double.POSITIVE_INFINITY;
+            int from = -1;
+            Arcs a = in[y];
+            scanned += a.size;
+            for (int j = 0; j < a.size; j++) {
+                int z = a.to[j];
+                if (mark[z] != stamp && t.d[z] + a.w[j] < best) {
+                    best = t.d[z] + a.w[j];
+                    from = z;
+                }
+            }
+            t.d[y] = best;
+            t.p[y] = from;
+        }
+        for (int k = 0; k < size; k++) {
+            if (t.d[subtree[k]] != Double.POSITIVE_INFINITY) {
+                push(subtree[k]);
+            }
+        }
+        propagate(t);
+        // vertices of the subtree are counted by push, except those which can not be reached any more
+        for (int k = 0; k < size; k++) {
+            if (t.d[subtree[k]] == Double.POSITIVE_INFINITY) {
+                affected++;
+            }
+        }
+    }
+
+    // Dijkstra from the vertices on the heap, improvements only
+    private void propagate(Tree t) {
+        while (heapSize > 0) {
+            int x = pop();
+            double dx = t.d[x];
+            Arcs a = out[x];
+            scanned += a.size;
+            for (int j = 0; j < a.size; j++) {
+                int y = a.to[j];
+                double dy = dx + a.w[j];
+                if (dy < t.d[y]) {
+                    t.d[y] = dy;
+                    t.p[y] = x;
+                    push(y);
+                }
+            }
+        }
+    }
+
+    // adds v to the heap (counted as affected) or moves it up after its key decreased
+    private void push(int v) {
+        if (pos[v] >= 0) {
+            up(pos[v]);
+            return;
+        }
+        affected++;
+        heap[heapSize] = v;
+        pos[v] = heapSize;
+        up(heapSize++);
+    }
+
+    private void up(int c) {
+        int v = heap[c];
+        while (c > 0) {
+            int parent = (c - 1) / 2;
+            if (key[heap[parent]] <= key[v]) {
+                break;
+            }
+            heap[c] = heap[parent];
+            pos[heap[c]] = c;
+            c = parent;
+        }
+        heap[c] = v;
+        pos[v] = c;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        pos[top] = -1;  // settled, weights are not negative so it will not come back
+        int last = heap[--heapSize];
+        int c = 0;
+        while (2 * c + 1 < heapSize) {
+            int child = 2 * c + 1;
+            if (child + 1 < heapSize && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            if (key[last] <= key[heap[child]]) {
+                break;
+            }
+            heap[c] = heap[child];
+            pos[heap[c]] = c;
+            c = child;
+        }
+        if (heapSize > 0) {
+            heap[c] = last;
+            pos[last] = c;
+        }
+        return top;
+    }
+
+    /**
+     * @return length of the shortest path, Double.POSITIVE_INFINITY if v can
+     * not be reached (or source is not registered)
+     */
+    public double distance(int source, int v) {
+        Tree t = trees.get(source);
+        int i = vi.toIndex(v);
+        return t == null || i < 0 ? Double.POSITIVE_INFINITY : t.d[i];
+    }
+
+    /**
+     * @return vertex preceding v on the shortest path from source or -1
+     */
+    public int predecessor(int source, int v) {
+        Tree t = trees.get(source);
+        int i = vi.toIndex(v);
+        return t == null || i < 0 || t.p[i] < 0 ? -1 : vi.toId(t.p[i]);
+    }
+
+    /**
+     * @return copy of the current paths in the form returned by
+     * GraphAlgorithms.dijkstra, null if source is not registered
+     */
+    public SingleSourceGraphPaths getPaths(int source) {
+        Tree t = trees.get(source);
+        if (t == null) {
+            return null;
+        }
+        double[] vd = new double[vi.maxId() + 1];
+        int[] vp = new int[vd.length];
+        Arrays.fill(vd, Double.POSITIVE_INFINITY);
+        Arrays.fill(vp, -1);
+        for (int i = 0; i < t.d.length; i++) {
+            vd[vi.toId(i)] = t.d[i];
+            vp[vi.toId(i)] = t.p[i] < 0 ? -1 : vi.toId(t.p[i]);
+        }
+        return new SingleSourceGraphPaths(vd, vp);
+    }
+
+    /**
+     * @return the number of changes of the connections so far
+     */
+    public long getNumUpdates() {
+        return updates;
+    }
+
+    /**
+     * @return vertices whose paths were recomputed by the last update (summed over the sources)
+     */
+    public long getLastAffected() {
+        return lastAffected;
+    }
+
+    /**
+     * @return connections examined by the last update (summed over the sources)
+     */
+    public long getLastScanned() {
+        return lastScanned;
+    }
+
+    public long getTotalAffected() {
+        return totalAffected;
+    }
+
+    public long getTotalScanned() {
+        return totalScanned;
+    }
+}
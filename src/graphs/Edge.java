@@ -1,7 +1,5 @@
 package graphs;
 
-import java.util.Objects;
-
 /**
  * Undirected edge in a weighted graph (see equals method)
  *
@@ -14,6 +12,11 @@ public class Edge implements EdgeInterface {
     private double weight;
     private String name;
 
+    // set when the edge is stored in a ModifiableGraph, which keeps its edge table in step
+    ModifiableGraph graph;
+    int id;
+    Edge twin;  // the same connection stored for the other vertex or null
+
     public Edge(int nA, int nB, double w) {
         vertexA = nA;
         vertexB = nB;
@@ -56,10 +59,19 @@ public class Edge implements EdgeInterface {
     }
 
     /**
+     * For an edge stored in ModifiableGraph the change is seen by the whole
+     * graph (both connection lists, edge table, version).
+     *
      * @param weight the weight to set
      */
     public void setWeight(double weight) {
         this.weight = weight;
+        if (twin != null) {
+            twin.weight = weight;
+        }
+        if (graph != null) {
+            graph.weightChanged(this);
+        }
     }
 
     /**
@@ -83,7 +95,8 @@ public class Edge implements EdgeInterface {
 
     @Override
     public int hashCode() {
-        return 7 * vertexA + 17 * vertexB + 251 * Objects.hash(weight) + 31 * Objects.hash(name);
+        // symmetric like equals; weight may change while the edge is in a set
+        return 31 * Math.min(vertexA, vertexB) + Math.max(vertexA, vertexB);
     }
 
     @Override
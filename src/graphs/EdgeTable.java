@@ -0,0 +1,129 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Edges of a graph stored in primitive arrays and identified by stable
+ * numbers 0..size()-1 (edge ids), in order of addition. Each undirected
+ * edge is stored once, so algorithms may visit all edges by a simple loop,
+ * without hashing and without creating Edge objects.
+ *
+ * The table also keeps the Edge object stored in the connection lists of the
+ * graph: names are read from it and changes of its weight are copied into
+ * the table (see Edge.setWeight), so both always agree.
+ *
+ * @author jstar
+ */
+public final class EdgeTable {
+
+    private int size;
+    private int[] vertexA = new int[16];
+    private int[] vertexB = new int[16];
+    private double[] weight = new double[16];
+    private Edge[] edge = new Edge[16];  // as stored in the graph
+
+    /**
+     * @return id of the new edge
+     */
+    int add(Edge e) {
+        if (size == vertexA.length) {
+            int capacity = size + (size >> 1);
+            vertexA = Arrays.copyOf(vertexA, capacity);
+            vertexB = Arrays.copyOf(vertexB, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            edge = Arrays.copyOf(edge, capacity);
+        }
+        vertexA[size] = e.getVertexA();
+        vertexB[size] = e.getVertexB();
+        weight[size] = e.getWeight();
+        edge[size] = e;
+        return size++;
+    }
+
+    void setWeight(int id, double w) {
+        weight[id] = w;
+    }
+
+    /**
+     * @return the Edge object stored in the graph
+     */
+    Edge stored(int id) {
+        return edge[id];
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getVertexA(int id) {
+        return vertexA[id];
+    }
+
+    public int getVertexB(int id) {
+        return vertexB[id];
+    }
+
+    public double getWeight(int id) {
+        return weight[id];
+    }
+
+    /**
+     * @return name of the edge or null
+     */
+    public String getName(int id) {
+        return edge[id].getName();
+    }
+
+    /**
+     * @return light view of the edge (nothing is copied)
+     */
+    public EdgeInterface getEdge(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("EdgeTable: no edge #" + id);
+        }
+        return new EdgeInterface() {
+            @Override
+            public int getVertexA() {
+                return vertexA[id];
+            }
+
+            @Override
+            public int getVertexB() {
+                return vertexB[id];
+            }
+
+            @Override
+            public double getWeight() {
+                return weight[id];
+            }
+
+            @Override
+            public String getName() {
+                return EdgeTable.this.getName(id);
+            }
+
+            @Override
+            public int compareTo(EdgeInterface o) {
+                return Double.compare(weight[id], o.getWeight());
+            }
+
+            @Override
+            public String toString() {
+                String n = getName();
+                return (n == null ? "" : n + " ") + vertexA[id] + "-(" + weight[id] + ")-" + vertexB[id];
+            }
+        };
+    }
+
+    /**
+     * @return new Edge object with the data of given edge
+     */
+    public Edge toEdge(int id) {
+        Edge e = new Edge(vertexA[id], vertexB[id], weight[id]);
+        e.setName(getName(id));
+        return e;
+    }
+}
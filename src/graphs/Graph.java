@@ -3,7 +3,6 @@ package graphs;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  *
@@ -14,12 +13,37 @@ public interface Graph extends Iterable<Edge> {
     public int getNumVertices();
     
     default public int maxVertexNo() {
-        TreeSet<Integer> sorted = new TreeSet<>(getVerticesNumbers());
-        return sorted.isEmpty() ? 0 : sorted.getLast();
+        VertexIndex index = getVertexIndex();
+        return index.size() == 0 ? 0 : index.maxId();
+    }
+
+    /**
+     * @return mapping of the vertices numbers onto 0..getNumVertices()-1
+     */
+    default public VertexIndex getVertexIndex() {
+        return new VertexIndex(getVerticesNumbers());
     }
     
     public boolean hasVertex(int number);
 
+    /**
+     * @return true if connection u-v does not imply connection v-u of the
+     * same weight (undirected graphs keep both directions); true unless the
+     * graph knows its connections are symmetric
+     */
+    default public boolean isDirected() {
+        return true;
+    }
+
+    /**
+     * @return number which grows whenever the graph is modified (results
+     * computed for one version are not valid for another), 0 for graphs which
+     * do not change
+     */
+    default public long getVersion() {
+        return 0;
+    }
+
     public Set<Integer> getVerticesNumbers();
 
     public Set<Edge> getAllEdges();
@@ -31,15 +55,29 @@ public interface Graph extends Iterable<Edge> {
     public String getVertexLabel(int n);
 
     public Set<Edge> getConnectionsList(int nodeNumber);
+
+    /**
+     * Visits all connections of given vertex without copying the connections list.
+     *
+     * @param vertexNumber - the vertex
+     * @param consumer - receives the other end of each connection and its weight
+     */
+    default public void forEachNeighbor(int vertexNumber, IntDoubleConsumer consumer) {
+        for (Edge e : getConnectionsList(vertexNumber)) {
+            consumer.accept(e.getVertexA() != vertexNumber ? e.getVertexA() : e.getVertexB(), e.getWeight());
+        }
+    }
+
+    /**
+     * @return the number of connections of given vertex
+     */
+    default public int degree(int vertexNumber) {
+        return getConnectionsList(vertexNumber).size();
+    }
     
     default public Set<Integer> getNeighbours(int vertexNumber) {
         Set<Integer> neighbours = new HashSet<>();
-        for( Edge e : getConnectionsList(vertexNumber)) {
-            if( e.getVertexA() != vertexNumber )
-                neighbours.add(e.getVertexA());
-            else
-                neighbours.add(e.getVertexB());
-        }
+        forEachNeighbor(vertexNumber, (v, w) -> neighbours.add(v));
         return neighbours;
     }
     
@@ -44,6 +44,11 @@ public class GraphAlgorithms {
             return n == 0;
         }
 
+        // distance of the vertex which would be polled
+        double minKey() {
+            return n == 0 ? Double.POSITIVE_INFINITY : d[h[0]];
+        }
+
         void heapUp(int c) {
             while (c > 0) {
                 int p = (c - 1) / 2;
@@ -73,8 +78,8 @@ public class GraphAlgorithms {
             }
             int ret = h[0];
             h[0] = h[--n];
-            pos[ret] = -1;
             pos[h[0]] = 0;
+            pos[ret] = -1;  // after the line above, which overwrites it when the heap gets empty
             int p = 0;  // heap down
             int c = 2 * p + 1;
             while (c < n) {
@@ -134,6 +139,19 @@ public class GraphAlgorithms {
 
     public static double weightSum(Graph g) {
         double sum = 0.0;
+        if (g instanceof CompactGraph cg) {
+            for (double w : cg.weights()) {
+                sum += w;
+            }
+            return sum;
+        }
+        if (g instanceof ModifiableGraph mg) {
+            EdgeTable et = mg.getEdgeTable();
+            for (int id = 0; id < et.size(); id++) {
+                sum += et.getWeight(id);
+            }
+            return sum;
+        }
         for (Edge e : g.getAllEdges()) {
             sum += e.getWeight();
         }
@@ -141,36 +159,41 @@ public class GraphAlgorithms {
     }
 
     public static Graph prim(Graph g) {
+        if (g instanceof CompactGraph cg) {
+            return primCSR(cg);
+        }
+        if (g instanceof OffHeapGraph og) {
+            return primOffHeap(og);
+        }
         PriorityQueue<Edge> pq = new PriorityQueue<>();
         ModifiableGraph mst = new ModifiableGraph();
-        Set<Integer> vertices = g.getVerticesNumbers();
-        boolean[] inMST = new boolean[g.maxVertexNo() + 1];
-        Arrays.fill(inMST, false);
-        mst.addVertex(vertices.iterator().next());
-        inMST[0] = true;
-        for (Edge e : g.getConnectionsList(0)) {
-            pq.add(e);
+        VertexIndex vi = g.getVertexIndex();
+        if (vi.size() == 0) {
+            return mst;
         }
+        boolean[] inMST = new boolean[vi.size()];
+        int first = vi.toId(0);
+        mst.addVertex(first);
+        inMST[0] = true;
+        g.forEachNeighbor(first, (v, w) -> pq.add(new Edge(first, v, w)));
         while (!pq.isEmpty() && mst.getNumVertices() < g.getNumVertices()) {
             //System.out.println( "Prim: |V.mst|="+mst.getNumVertices()+"  |PQ|="+pq.size());
             Edge se = pq.poll();
             int nA = se.getVertexA();
             int nB = se.getVertexB();
-            //System.out.println( "Edge " + nA + "-" + nB + " inMST(" + nA + ")=" + inMST[nA] + " inMST(" + nB + ")=" + inMST[nB] );
-            if (inMST[nA] && !inMST[nB]) {
+            int iA = vi.toIndex(nA);
+            int iB = vi.toIndex(nB);
+            //System.out.println( "Edge " + nA + "-" + nB + " inMST(" + nA + ")=" + inMST[iA] + " inMST(" + nB + ")=" + inMST[iB] );
+            if (inMST[iA] && !inMST[iB]) {
                 mst.addVertex(nB);
-                inMST[nB] = true;
+                inMST[iB] = true;
                 mst.addEdge(nA, nB, se.getWeight());
-                for (Edge e : g.getConnectionsList(nB)) {
-                    pq.add(e);
-                }
-            } else if (!inMST[nA] && inMST[nB]) {
+                g.forEachNeighbor(nB, (v, w) -> pq.add(new Edge(nB, v, w)));
+            } else if (!inMST[iA] && inMST[iB]) {
                 mst.addVertex(nA);
-                inMST[nA] = true;
+                inMST[iA] = true;
                 mst.addEdge(nB, nA, se.getWeight());
-                for (Edge e : g.getConnectionsList(nA)) {
-                    pq.add(e);
-                }
+                g.forEachNeighbor(nA, (v, w) -> pq.add(new Edge(nA, v, w)));
             }
         }
         System.out.println("Total weight " + weightSum(mst));
@@ -178,36 +201,111 @@ public class GraphAlgorithms {
     }
 
     public static Graph classical_prim(Graph g) {
-        double[] cheapest = new double[g.maxVertexNo() + 1];
+        if (g instanceof CompactGraph cg) {
+            return primCSR(cg);
+        }
+        if (g instanceof OffHeapGraph og) {
+            return primOffHeap(og);
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        double[] cheapest = new double[n];
         Arrays.fill(cheapest, Double.POSITIVE_INFINITY);
         HeapPQ pq = new HeapPQ(cheapest);
-        Edge[] connection = new Edge[g.maxVertexNo() + 1];
-        Arrays.fill(connection, null);
-        boolean[] inMST = new boolean[g.maxVertexNo() + 1];
-        Arrays.fill(inMST, false);
+        Edge[] connection = new Edge[n];
+        boolean[] inMST = new boolean[n];
         ModifiableGraph mst = new ModifiableGraph();
+        if (n == 0) {
+            return mst;
+        }
         pq.add(0, 0.0);
         while (!pq.isEmpty()) {
-            int u = pq.poll();
+            int iu = pq.poll();
+            int u = vi.toId(iu);
             mst.addVertex(u);
-            inMST[u] = true;
-            if (connection[u] != null) {
-                mst.addEdge(connection[u]);
+            inMST[iu] = true;
+            if (connection[iu] != null) {
+                mst.addEdge(connection[iu]);
             }
             //System.out.println("Added " + u);
-            for (Edge e : g.getConnectionsList(u)) {
-                //System.out.println(e);
-                int v = e.getVertexA();
-                if (v == u) {
-                    v = e.getVertexB();
+            g.forEachNeighbor(u, (v, w) -> {
+                int iv = vi.toIndex(v);
+                if (!inMST[iv] && w < cheapest[iv]) {
+                    connection[iv] = new Edge(u, v, w);
+                    pq.update(iv, w);
                 }
-                if (!inMST[v] && e.getWeight() < cheapest[v]) {
-                    cheapest[v] = e.getWeight();
-                    connection[v] = new Edge(u, v, cheapest[v]);
-                    pq.update(v, cheapest[v]);
+            });
+            //System.out.println(pq);
+        }
+        System.out.println("Total weight " + weightSum(mst));
+        return mst;
+    }
+
+    // Prim's algorithm (CLRS version) working directly on the CSR arrays
+    private static Graph primCSR(CompactGraph g) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        ModifiableGraph mst = new ModifiableGraph();
+        if (n == 0) {
+            return mst;
+        }
+        double[] cheapest = new double[n];
+        Arrays.fill(cheapest, Double.POSITIVE_INFINITY);
+        int[] connection = new int[n];
+        Arrays.fill(connection, -1);
+        boolean[] inMST = new boolean[n];
+        HeapPQ pq = new HeapPQ(cheapest);
+        pq.add(0, 0.0);
+        while (!pq.isEmpty()) {
+            int u = pq.poll();
+            inMST[u] = true;
+            mst.addVertex(g.vertexAt(u));
+            if (connection[u] >= 0) {
+                mst.addEdge(new Edge(g.vertexAt(connection[u]), g.vertexAt(u), cheapest[u]));
+            }
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                if (!inMST[v] && wgt[k] < cheapest[v]) {
+                    connection[v] = u;
+                    pq.update(v, wgt[k]);
+                }
+            }
+        }
+        System.out.println("Total weight " + weightSum(mst));
+        return mst;
+    }
+
+    // Prim's algorithm (CLRS version) on the CSR arrays kept outside of the heap
+    private static Graph primOffHeap(OffHeapGraph g) {
+        int n = g.getNumVertices();
+        ModifiableGraph mst = new ModifiableGraph();
+        if (n == 0) {
+            return mst;
+        }
+        double[] cheapest = new double[n];
+        Arrays.fill(cheapest, Double.POSITIVE_INFINITY);
+        int[] connection = new int[n];
+        Arrays.fill(connection, -1);
+        boolean[] inMST = new boolean[n];
+        HeapPQ pq = new HeapPQ(cheapest);
+        pq.add(0, 0.0);
+        while (!pq.isEmpty()) {
+            int u = pq.poll();
+            inMST[u] = true;
+            mst.addVertex(g.vertexAt(u));
+            if (connection[u] >= 0) {
+                mst.addEdge(new Edge(g.vertexAt(connection[u]), g.vertexAt(u), cheapest[u]));
+            }
+            for (long k = g.rowStart(u), end = g.rowEnd(u); k < end; k++) {
+                int v = g.target(k);
+                double w = g.weight(k);
+                if (!inMST[v] && w < cheapest[v]) {
+                    connection[v] = u;
+                    pq.update(v, w);
                 }
             }
-            //System.out.println(pq);
         }
         System.out.println("Total weight " + weightSum(mst));
         return mst;
@@ -265,14 +363,14 @@ public class GraphAlgorithms {
 
     public static Graph kruskal(Graph g) {
         PriorityQueue<Edge> pq = new PriorityQueue<>();
-        Forest forest = new Forest(g.maxVertexNo() + 1);
-        for (Integer v : g.getVerticesNumbers()) {
+        VertexIndex vi = g.getVertexIndex();
+        Forest forest = new Forest(vi.size());
+        for (int i = 0; i < vi.size(); i++) {
+            int v = vi.toId(i);
             ModifiableGraph t = new ModifiableGraph();
             t.addVertex(v);
             forest.add(t);
-            for (Edge e : g.getConnectionsList(v)) {
-                pq.add(e);
-            }
+            g.forEachNeighbor(v, (u, w) -> pq.add(new Edge(v, u, w)));
         }
 
         while (!pq.isEmpty() && forest.size() > 1) {
@@ -280,8 +378,8 @@ public class GraphAlgorithms {
             int nA = se.getVertexA();
             int nB = se.getVertexB();
 
-            int iA = forest.getTreeWithVertex(nA);
-            int iB = forest.getTreeWithVertex(nB);
+            int iA = forest.getTreeWithVertex(vi.toIndex(nA));
+            int iB = forest.getTreeWithVertex(vi.toIndex(nB));
 
             //System.out.println("Edge " + se + "  iA=" + iA + "  iB=" + iB);
             if (iA != iB) {
@@ -299,30 +397,28 @@ public class GraphAlgorithms {
     }
 
     public static Graph kruskalDSU(Graph g) {
+        if (g instanceof CompactGraph cg) {
+            return kruskalDSUCSR(cg);
+        }
         PriorityQueue<Edge> pq = new PriorityQueue<>();
-        List<Integer> vertsIndices = new ArrayList<>();  // assigns a continuous numbering to the vertices, from 0 to n.
-        int forestSize = 0;
-        for (Integer v : g.getVerticesNumbers()) {
-            vertsIndices.add(v, forestSize++);
-            for (Edge e : g.getConnectionsList(v)) {
-                pq.add(e);
-            }
+        VertexIndex vi = g.getVertexIndex();  // assigns a continuous numbering to the vertices, from 0 to n.
+        int forestSize = vi.size();
+        for (int i = 0; i < forestSize; i++) {
+            int v = vi.toId(i);
+            g.forEachNeighbor(v, (u, w) -> pq.add(new Edge(v, u, w)));
         }
-        System.out.println(vertsIndices);
-
-        DSU dsu = new DSU(forestSize);
-
-        System.out.println(dsu);
 
         ModifiableGraph mst = new ModifiableGraph();
+        if (forestSize == 0) {
+            return mst;
+        }
+        DSU dsu = new DSU(forestSize);
         while (!pq.isEmpty() && forestSize > 1) {
             Edge se = pq.poll();
-            int nA = se.getVertexA();
-            int nB = se.getVertexB();
+            int iA = vi.toIndex(se.getVertexA());
+            int iB = vi.toIndex(se.getVertexB());
 
-            if (dsu.differentSets(vertsIndices.get(nA), vertsIndices.get(nB))) {
-                dsu.union(vertsIndices.get(nA), vertsIndices.get(nB));
-                System.out.println(dsu);
+            if (dsu.union(iA, iB)) {
                 mst.addEdge(se);
                 forestSize--;
             }
@@ -331,79 +427,271 @@ public class GraphAlgorithms {
         return mst;
     }
 
+    // Kruskal's algorithm on the CSR arrays: each undirected connection is taken once,
+    // HeapPQ orders connections by weight
+    private static Graph kruskalDSUCSR(CompactGraph g) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        int[] eA = new int[tgt.length];
+        int[] eB = new int[tgt.length];
+        double[] eW = new double[tgt.length];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                if (v > u || v < u && !hasConnection(g, v, u)) {
+                    eA[m] = u;
+                    eB[m] = v;
+                    eW[m++] = wgt[k];
+                }
+            }
+        }
+        HeapPQ pq = new HeapPQ(eW);
+        for (int i = 0; i < m; i++) {
+            pq.add(i, eW[i]);
+        }
+        ModifiableGraph mst = new ModifiableGraph();
+        if (n > 0) {
+            DSU dsu = new DSU(n);
+            int forestSize = n;
+            while (!pq.isEmpty() && forestSize > 1) {
+                int e = pq.poll();
+                if (dsu.union(eA[e], eB[e])) {
+                    mst.addEdge(new Edge(g.vertexAt(eA[e]), g.vertexAt(eB[e]), eW[e]));
+                    forestSize--;
+                }
+            }
+        }
+        System.out.println("Total weight " + weightSum(mst));
+        return mst;
+    }
+
+    private static boolean hasConnection(CompactGraph g, int u, int v) {
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        for (int k = off[u]; k < off[u + 1]; k++) {
+            if (tgt[k] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static SingleSourceGraphPaths bfs(Graph g, int startNode) {
         if (g == null || !g.hasVertex(startNode)) {
             return null;
         }
-        int[] p = new int[g.maxVertexNo() + 1];
+        if (g instanceof CompactGraph cg) {
+            return bfsCSR(cg, startNode);
+        }
+        if (g instanceof OffHeapGraph og) {
+            return bfsOffHeap(og, startNode);
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int[] p = new int[vi.size()];
         double[] d = new double[p.length];
         int[] c = new int[p.length];
         java.util.Arrays.fill(d, -1);    // distance equal -1 marks node which is not connected to the start node
         java.util.Arrays.fill(p, -1);    //  same is valid for precedessor
         java.util.Arrays.fill(c, WHITE); // color: WHITE, GREY, BLACK = "not processed","in processing","finished"
 
-        c[startNode] = GRAY;
-        d[startNode] = 0;
-        p[startNode] = -1;  // made by Arrays.fill, repeated here for clarity
+        int s = vi.toIndex(startNode);
+        c[s] = GRAY;
+        d[s] = 0;
+        p[s] = -1;  // made by Arrays.fill, repeated here for clarity
         java.util.Deque<Integer> fifo = new java.util.ArrayDeque<>();
-        fifo.add(startNode);
+        fifo.add(s);
         int currentNode;
         while (!fifo.isEmpty()) {
             currentNode = fifo.pop();
-            for (Edge e : g.getConnectionsList(currentNode)) {
-                int n = e.getVertexB() == currentNode ? e.getVertexA() : e.getVertexB();
+            final int u = currentNode;
+            g.forEachNeighbor(vi.toId(u), (v, w) -> {
+                int n = vi.toIndex(v);
                 if (c[n] == WHITE) {
                     c[n] = GRAY;
-                    p[n] = currentNode;
-                    d[n] = d[currentNode] + 1;
+                    p[n] = u;
+                    d[n] = d[u] + 1;
                     fifo.add(n);
                 }
-            }
+            });
             c[currentNode] = BLACK;
         }
 
-        return new SingleSourceGraphPaths(d, p);
+        return toVertexPaths(vi, d, p, -1);
+    }
+
+    /**
+     * Parallel, direction-optimizing version of bfs (see ParallelBFS) run on
+     * the common ForkJoinPool. Graphs other than CompactGraph are copied into
+     * CompactGraph first.
+     *
+     * @return same as bfs (predecessors may differ for paths of equal length)
+     */
+    public static SingleSourceGraphPaths bfsParallel(Graph g, int startNode) {
+        if (g == null || !g.hasVertex(startNode)) {
+            return null;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        SingleSourceGraphPaths sp = ParallelBFS.run(cg, startNode, java.util.concurrent.ForkJoinPool.commonPool());
+        return toVertexPaths(cg.getVertexIndex(), sp.d, sp.p, -1);
+    }
+
+    /**
+     * BFS from many sources at once, 64 of them sharing each scan of the
+     * connections (see MultiSourceBFS). Pays off when the searches overlap
+     * early, as in graphs of small diameter; on grids and other graphs of
+     * big diameter bfs called for each source may be faster. Graphs other
+     * than CompactGraph are copied into CompactGraph first.
+     *
+     * @param keepDistances - false if only eccentricities, numbers of reached
+     * vertices and sums of distances are needed (memory for distances is
+     * sources x vertices ints)
+     * @return distances from the sources, in the order given
+     */
+    public static HopDistances multiSourceBfs(Graph g, int[] sources, boolean keepDistances) {
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        return MultiSourceBFS.run(cg, sources, keepDistances);
+    }
+
+    private static SingleSourceGraphPaths bfsCSR(CompactGraph g, int startNode) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, -1);    // distance equal -1 marks node which is not connected to the start node
+        java.util.Arrays.fill(p, -1);
+        int[] fifo = new int[n];         // every vertex enters the queue at most once
+        int head = 0, tail = 0;
+        int s = g.indexOf(startNode);
+        d[s] = 0;
+        fifo[tail++] = s;
+        while (head < tail) {
+            int u = fifo[head++];
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                if (d[v] < 0) {
+                    d[v] = d[u] + 1;
+                    p[v] = u;
+                    fifo[tail++] = v;
+                }
+            }
+        }
+        return toVertexPaths(g.getVertexIndex(), d, p, -1);
+    }
+
+    private static SingleSourceGraphPaths bfsOffHeap(OffHeapGraph g, int startNode) {
+        int n = g.getNumVertices();
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, -1);    // distance equal -1 marks node which is not connected to the start node
+        java.util.Arrays.fill(p, -1);
+        int[] fifo = new int[n];         // every vertex enters the queue at most once
+        int head = 0, tail = 0;
+        int s = g.indexOf(startNode);
+        d[s] = 0;
+        fifo[tail++] = s;
+        while (head < tail) {
+            int u = fifo[head++];
+            for (long k = g.rowStart(u), end = g.rowEnd(u); k < end; k++) {
+                int v = g.target(k);
+                if (d[v] < 0) {
+                    d[v] = d[u] + 1;
+                    p[v] = u;
+                    fifo[tail++] = v;
+                }
+            }
+        }
+        return toVertexPaths(g.getVertexIndex(), d, p, -1);
+    }
+
+    // Algorithms work on continuous vertex indices (see VertexIndex), but their results
+    // are indexed by vertex numbers - this is what the GUIs expect.
+    // For the most common case of vertices numbered 0..n-1 nothing has to be translated.
+    private static SingleSourceGraphPaths toVertexPaths(VertexIndex vi, double[] d, int[] p, double unreached) {
+        if (vi.isIdentity()) {
+            return new SingleSourceGraphPaths(d, p);
+        }
+        return new SingleSourceGraphPaths(toVertexNumbering(vi, d, unreached), toVertexNumbering(vi, p));
+    }
+
+    private static double[] toVertexNumbering(VertexIndex vi, double[] a, double missing) {
+        double[] va = new double[vi.maxId() + 1];
+        java.util.Arrays.fill(va, missing);
+        for (int i = 0; i < a.length; i++) {
+            va[vi.toId(i)] = a[i];
+        }
+        return va;
+    }
+
+    private static int[] toVertexNumbering(VertexIndex vi, int[] a, int missing) {
+        int[] va = new int[vi.maxId() + 1];
+        java.util.Arrays.fill(va, missing);
+        for (int i = 0; i < a.length; i++) {
+            va[vi.toId(i)] = a[i];
+        }
+        return va;
+    }
+
+    // as above, but also translates the stored values, which are indices of the predecessors
+    private static int[] toVertexNumbering(VertexIndex vi, int[] p) {
+        int[] vp = new int[vi.maxId() + 1];
+        java.util.Arrays.fill(vp, -1);
+        for (int i = 0; i < p.length; i++) {
+            vp[vi.toId(i)] = p[i] < 0 ? -1 : vi.toId(p[i]);
+        }
+        return vp;
     }
 
     public static SingleSourceGraphPaths dfs(Graph g) {
         if (g == null || g.getNumVertices() < 1) {
             return null;
         }
-        int[] d = new int[g.maxVertexNo() + 1];
+        VertexIndex vi = g.getVertexIndex();
+        int[] d = new int[vi.size()];
         int[] f = new int[d.length];
         int[] p = new int[d.length];
         java.util.Arrays.fill(d, -1);    // discovery "time"  -1 means "not visited"
         java.util.Arrays.fill(f, -1);    // finish "time"
         java.util.Arrays.fill(p, -1);    // parent
 
-        int[] c = new int[g.maxVertexNo() + 1]; // color: WHITE, GREY, BLACK = "not processed","in processing","finished" 
+        int[] c = new int[d.length]; // color: WHITE, GREY, BLACK = "not processed","in processing","finished" 
         java.util.Arrays.fill(c, WHITE);
 
         try {
-            for (Integer v : g.getVerticesNumbers()) {
+            for (int v = 0; v < d.length; v++) {
                 if (c[v] == WHITE) {
                     d[v] = 0;
-                    dfs_visit(g, v, d, f, p, c, 0);
+                    dfs_visit(g, vi, v, d, f, p, c, 0);
                 }
             }
         } catch (StackOverflowError e) {
             throw new IllegalArgumentException("Recursive DFS: graph is to big/complicated");
         }
 
-        return new SingleSourceGraphPaths(p, d, f);
+        return toVertexPaths(vi, p, d, f);
     }
 
-    private static void dfs_visit(Graph g, int currentNode, int[] d, int[] f, int[] p, int[] c, int time) {
+    private static SingleSourceGraphPaths toVertexPaths(VertexIndex vi, int[] p, int[] d, int[] f) {
+        if (vi.isIdentity()) {
+            return new SingleSourceGraphPaths(p, d, f);
+        }
+        return new SingleSourceGraphPaths(toVertexNumbering(vi, p), toVertexNumbering(vi, d, -1), toVertexNumbering(vi, f, -1));
+    }
+
+    private static void dfs_visit(Graph g, VertexIndex vi, int currentNode, int[] d, int[] f, int[] p, int[] c, int time) {
 
         c[currentNode] = GRAY;
         d[currentNode] = time;
-        for (Edge e : g.getConnectionsList(currentNode)) {
-            int n = e.getVertexB();
+        g.forEachNeighbor(vi.toId(currentNode), (v, w) -> {
+            int n = vi.toIndex(v);
             if (c[n] == WHITE) {
                 p[n] = currentNode;
-                dfs_visit(g, n, d, f, p, c, time + 1);
+                dfs_visit(g, vi, n, d, f, p, c, time + 1);
             }
-        }
+        });
         c[currentNode] = BLACK;
         f[currentNode] = time + 1;
     }
@@ -412,7 +700,8 @@ public class GraphAlgorithms {
         if (g == null || g.getNumVertices() < 1) {
             return null;
         }
-        int[] d = new int[g.maxVertexNo() + 1];
+        VertexIndex vi = g.getVertexIndex();
+        int[] d = new int[vi.size()];
         int[] f = new int[d.length];
         int[] p = new int[d.length];
         java.util.Arrays.fill(d, -1);    // discovery "time"  -1 means "not visited"
@@ -424,7 +713,8 @@ public class GraphAlgorithms {
 
         int time = 0;
         java.util.Deque<Integer> stack = new java.util.ArrayDeque<>();
-        for (Integer n : g.getVerticesNumbers()) {
+        int[] next = new int[1];  // first white neighbour found by the visitor
+        for (int n = 0; n < d.length; n++) {
             if (c[n] == WHITE) {
                 time = 0;
                 c[n] = GRAY;
@@ -433,16 +723,20 @@ public class GraphAlgorithms {
                 while (!stack.isEmpty()) {
                     int currentNode = stack.pop();
                     boolean isFinished = true;
-                    for (Edge e : g.getConnectionsList(currentNode)) {
-                        int neighbour = e.getVertexB();
-                        if (c[neighbour] == WHITE) {
-                            c[neighbour] = GRAY;
-                            p[neighbour] = currentNode;
-                            d[neighbour] = time++;
-                            stack.push(neighbour);
-                            isFinished = false;
-                            break;
+                    next[0] = -1;
+                    g.forEachNeighbor(vi.toId(currentNode), (v, w) -> {
+                        int iv = vi.toIndex(v);
+                        if (next[0] < 0 && c[iv] == WHITE) {
+                            next[0] = iv;
                         }
+                    });
+                    int neighbour = next[0];
+                    if (neighbour >= 0) {
+                        c[neighbour] = GRAY;
+                        p[neighbour] = currentNode;
+                        d[neighbour] = time++;
+                        stack.push(neighbour);
+                        isFinished = false;
                     }
                     if (isFinished) {
                         c[currentNode] = BLACK;
@@ -455,7 +749,7 @@ public class GraphAlgorithms {
             }
         }
 
-        return new SingleSourceGraphPaths(p, d, f);
+        return toVertexPaths(vi, p, d, f);
 
     }
 
@@ -463,72 +757,482 @@ public class GraphAlgorithms {
         if (g == null || !g.hasVertex(startNode)) {
             return null;
         }
+        if (g instanceof CompactGraph cg) {
+            return dijkstraCSR(cg, startNode);
+        }
+        if (g instanceof OffHeapGraph og) {
+            return dijkstraOffHeap(og, startNode);
+        }
         //System.out.println("Dijkstra, source=" + startNode);
-        int[] p = new int[g.maxVertexNo() + 1];
+        VertexIndex vi = g.getVertexIndex();
+        int[] p = new int[vi.size()];
         double[] d = new double[p.length];
         java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
         java.util.Arrays.fill(p, -1);
 
-        p[startNode] = -1;  // made by Arrays.fill, repeated here for clarity
         HeapPQ queue = new HeapPQ(d);
-        queue.add(startNode, 0.0);
-        int currentNode;
+        queue.add(vi.toIndex(startNode), 0.0);
         while (!queue.isEmpty()) {
-            currentNode = queue.poll();
+            final int currentNode = queue.poll();
             //System.out.println("current: " + currentNode);
-            for (Edge e : g.getConnectionsList(currentNode)) {
-                int n = e.getVertexB();
+            g.forEachNeighbor(vi.toId(currentNode), (v, w) -> {
+                int n = vi.toIndex(v);
                 //System.out.print("\t" + n + ": ");
-                if (d[n] > d[currentNode] + e.getWeight()) {
-                    //System.out.print(d[n] + "->" + (d[currentNode] + e.getWeight()));
-                    d[n] = d[currentNode] + e.getWeight();
+                if (d[n] > d[currentNode] + w) {
+                    //System.out.print(d[n] + "->" + (d[currentNode] + w));
+                    d[n] = d[currentNode] + w;
                     queue.update(n, d[n]);
-                    p[e.getVertexB()] = currentNode;
+                    p[n] = currentNode;
                 }
                 //System.out.println();
+            });
+        }
+
+        return toVertexPaths(vi, d, p, Double.POSITIVE_INFINITY);
+    }
+
+    private static SingleSourceGraphPaths dijkstraCSR(CompactGraph g, int startNode) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(p, -1);
+        HeapPQ queue = new HeapPQ(d);
+        queue.add(g.indexOf(startNode), 0.0);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            double du = d[u];
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                if (d[v] > du + wgt[k]) {
+                    queue.update(v, du + wgt[k]);
+                    p[v] = u;
+                }
             }
         }
+        return toVertexPaths(g.getVertexIndex(), d, p, Double.POSITIVE_INFINITY);
+    }
 
-        return new SingleSourceGraphPaths(d, p);
+    private static SingleSourceGraphPaths dijkstraOffHeap(OffHeapGraph g, int startNode) {
+        int n = g.getNumVertices();
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(p, -1);
+        HeapPQ queue = new HeapPQ(d);
+        queue.add(g.indexOf(startNode), 0.0);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            double du = d[u];
+            for (long k = g.rowStart(u), end = g.rowEnd(u); k < end; k++) {
+                int v = g.target(k);
+                double w = g.weight(k);
+                if (d[v] > du + w) {
+                    queue.update(v, du + w);
+                    p[v] = u;
+                }
+            }
+        }
+        return toVertexPaths(g.getVertexIndex(), d, p, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Parallel version of dijkstra (delta-stepping, see DeltaStepping) with
+     * delta chosen from the edge weights and the average degree of g.
+     */
+    public static SingleSourceGraphPaths deltaStepping(Graph g, int startNode) {
+        if (g == null || !g.hasVertex(startNode)) {
+            return null;
+        }
+        return deltaStepping(g, startNode, DeltaStepping.defaultDelta(g));
+    }
+
+    /**
+     * Parallel version of dijkstra (delta-stepping) run on the common ForkJoinPool.
+     * Graphs other than CompactGraph are copied into CompactGraph first.
+     *
+     * @param delta - width of the buckets: connections not heavier than delta
+     * are relaxed in parallel phases, small delta means little repeated work but
+     * many phases, big - the opposite
+     * @return same as dijkstra (predecessors may differ for paths of equal length)
+     */
+    public static SingleSourceGraphPaths deltaStepping(Graph g, int startNode, double delta) {
+        if (g == null || !g.hasVertex(startNode)) {
+            return null;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        SingleSourceGraphPaths sp = DeltaStepping.run(cg, startNode, delta, java.util.concurrent.ForkJoinPool.commonPool());
+        return toVertexPaths(cg.getVertexIndex(), sp.d, sp.p, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return graph with reversed connections (g itself if it is undirected);
+     * it is kept by the graph until the graph changes, except for graphs of
+     * other classes than those of this package
+     */
+    public static Graph reverse(Graph g) {
+        if (!g.isDirected()) {
+            return g;
+        }
+        if (g instanceof BasicGraph bg) {
+            return bg.reverse();
+        }
+        if (g instanceof CompactGraph cg) {
+            return cg.reverse();
+        }
+        if (g instanceof OffHeapGraph og) {
+            return og.reverse();
+        }
+        if (g instanceof ConcurrentGraph cg) {
+            return cg.reverse();
+        }
+        return CompactGraph.reverseOf(g);
+    }
+
+    /**
+     * Bidirectional Dijkstra: searches from both ends and stops when the sum
+     * of the smallest distances in both queues reaches the best path found.
+     * Weights must not be negative.
+     *
+     * @return the path or null if there is no source or target in g
+     */
+    public static GraphPath shortestPath(Graph g, int source, int target) {
+        if (g == null || !g.hasVertex(source) || !g.hasVertex(target)) {
+            return null;
+        }
+        Graph rg = reverse(g);
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        int s = vi.toIndex(source);
+        int t = vi.toIndex(target);
+        double[] df = new double[n];
+        double[] db = new double[n];
+        int[] pf = new int[n];
+        int[] pb = new int[n];   // next vertex on the way to the target
+        Arrays.fill(df, Double.POSITIVE_INFINITY);
+        Arrays.fill(db, Double.POSITIVE_INFINITY);
+        Arrays.fill(pf, -1);
+        Arrays.fill(pb, -1);
+        HeapPQ qf = new HeapPQ(df);
+        HeapPQ qb = new HeapPQ(db);
+        qf.add(s, 0.0);
+        qb.add(t, 0.0);
+        double[] best = {s == t ? 0.0 : Double.POSITIVE_INFINITY};
+        int[] meet = {s == t ? s : -1};
+        int settled = 0;
+        while (!qf.isEmpty() && !qb.isEmpty() && qf.minKey() + qb.minKey() < best[0]) {
+            boolean forward = qf.minKey() <= qb.minKey();
+            HeapPQ q = forward ? qf : qb;
+            double[] d = forward ? df : db;
+            double[] other = forward ? db : df;
+            int[] p = forward ? pf : pb;
+            int u = q.poll();
+            settled++;
+            double du = d[u];
+            (forward ? g : rg).forEachNeighbor(vi.toId(u), (v, w) -> {
+                int iv = vi.toIndex(v);
+                if (du + w < d[iv]) {
+                    q.update(iv, du + w);
+                    p[iv] = u;
+                }
+                if (du + w + other[iv] < best[0]) {
+                    best[0] = du + w + other[iv];
+                    meet[0] = iv;
+                }
+            });
+        }
+        if (meet[0] < 0) {
+            return new GraphPath(source, target, Double.POSITIVE_INFINITY, new int[0], settled);
+        }
+        int len = 0;
+        for (int x = meet[0]; x >= 0; x = pf[x]) {
+            len++;
+        }
+        for (int x = pb[meet[0]]; x >= 0; x = pb[x]) {
+            len++;
+        }
+        int[] path = new int[len];
+        int i = 0;
+        for (int x = meet[0]; x >= 0; x = pf[x]) {
+            path[i++] = x;
+        }
+        for (int a = 0, b = i - 1; a < b; a++, b--) {
+            int tmp = path[a];
+            path[a] = path[b];
+            path[b] = tmp;
+        }
+        for (int x = pb[meet[0]]; x >= 0; x = pb[x]) {
+            path[i++] = x;
+        }
+        for (i = 0; i < len; i++) {
+            path[i] = vi.toId(path[i]);
+        }
+        return new GraphPath(source, target, best[0], path, settled);
+    }
+
+    /**
+     * Distances from each source to each target: Dijkstras from the sources
+     * run in parallel (on workspaces reused by the sources of this call, see
+     * ShortestPathWorkspace.Pool) and each stops as soon as all the targets
+     * are settled. Graphs other than CompactGraph are copied into
+     * CompactGraph first - pass a CompactGraph to avoid the copy when making
+     * many tables, or build ContractionHierarchy and use its distanceTable.
+     *
+     * @return the table, Double.POSITIVE_INFINITY for vertices which are not in g
+     */
+    public static DistanceTable distanceTable(Graph g, int[] sources, int[] targets) {
+        if ((long) sources.length * targets.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("GraphAlgorithms.distanceTable: " + sources.length + "x" + targets.length + " table is too big!");
+        }
+        Graph cg = g instanceof CompactGraph ? g : new CompactGraph(g);
+        ShortestPathWorkspace.Pool workspaces = new ShortestPathWorkspace.Pool(cg);
+        int nt = targets.length;
+        double[] table = new double[sources.length * nt];
+        java.util.stream.IntStream.range(0, sources.length).parallel().forEach(i -> {
+            ShortestPathWorkspace ws = workspaces.take();
+            boolean found = ws.run(sources[i], targets, Double.POSITIVE_INFINITY) != null;
+            for (int j = 0; j < nt; j++) {
+                table[i * nt + j] = found ? ws.distance(targets[j]) : Double.POSITIVE_INFINITY;
+            }
+            workspaces.give(ws);
+        });
+        return new DistanceTable(sources.clone(), targets.clone(), table);
+    }
+
+    /**
+     * Up to k shortest loopless paths (Yen). Use KShortestPaths directly to
+     * get them one by one without fixing k.
+     *
+     * @return paths in order of length, fewer than k if there are no more,
+     * null if there is no source or target in g
+     */
+    public static List<GraphPath> kShortestPaths(Graph g, int source, int target, int k) {
+        if (g == null || !g.hasVertex(source) || !g.hasVertex(target)) {
+            return null;
+        }
+        List<GraphPath> paths = new ArrayList<>();
+        KShortestPaths it = new KShortestPaths(g, source, target);
+        while (paths.size() < k && it.hasNext()) {
+            paths.add(it.next());
+        }
+        return paths;
+    }
+
+    /**
+     * A* search: vertices are settled in order of distance from the source
+     * plus estimated distance to the target. Weights must not be negative
+     * and the heuristic must not overestimate (see Heuristic).
+     *
+     * @return the path or null if there is no source or target in g
+     */
+    public static GraphPath aStar(Graph g, int source, int target, Heuristic h) {
+        if (g == null || !g.hasVertex(source) || !g.hasVertex(target)) {
+            return null;
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        double[] d = new double[n];     // distance from the source
+        double[] f = new double[n];     // d + estimate, the key of the queue
+        int[] p = new int[n];
+        Arrays.fill(d, Double.POSITIVE_INFINITY);
+        Arrays.fill(p, -1);
+        HeapPQ queue = new HeapPQ(f);
+        int s = vi.toIndex(source);
+        int t = vi.toIndex(target);
+        d[s] = 0.0;
+        queue.add(s, h.estimate(source, target));
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            settled++;
+            if (u == t) {
+                break;
+            }
+            double du = d[u];
+            g.forEachNeighbor(vi.toId(u), (v, w) -> {
+                int iv = vi.toIndex(v);
+                if (du + w < d[iv]) {
+                    double estimate = h.estimate(v, target);
+                    if (estimate == Double.POSITIVE_INFINITY) {
+                        return;  // the target can not be reached from v
+                    }
+                    d[iv] = du + w;
+                    p[iv] = u;
+                    queue.update(iv, du + w + estimate); // a settled vertex is queued again if its distance improves
+                }
+            });
+        }
+        if (d[t] == Double.POSITIVE_INFINITY) {
+            return new GraphPath(source, target, Double.POSITIVE_INFINITY, new int[0], settled);
+        }
+        int len = 0;
+        for (int x = t; x >= 0; x = p[x]) {
+            len++;
+        }
+        int[] path = new int[len];
+        for (int x = t, i = len - 1; x >= 0; x = p[x], i--) {
+            path[i] = vi.toId(x);
+        }
+        return new GraphPath(source, target, d[t], path, settled);
     }
 
     public static SingleSourceGraphPaths bellmanFord(Graph g, int startNode) {
         if (g == null || !g.hasVertex(startNode)) {
             return null;
         }
-        //System.out.println("Dijkstra, source=" + startNode);
-        int nn = g.maxVertexNo() + 1;
+        if (g instanceof CompactGraph cg) {
+            return bellmanFordCSR(cg, startNode);
+        }
+        if (g instanceof ModifiableGraph mg) {
+            return bellmanFordEdges(mg, startNode);
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int nn = vi.size();
         int[] p = new int[nn];
         double[] d = new double[nn];
         java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
         java.util.Arrays.fill(p, -1);
 
-        p[startNode] = -1;  // made by Arrays.fill, repeated here for clarity
-        d[startNode] = 0;
-        Set<Edge> allEdges = g.getAllEdges();
-        List<Integer> vertices = new ArrayList<>(g.getVerticesNumbers());
-        for (int i = 1; i < vertices.size(); i++) { // one less repetitions than vertces 
-            for (Edge e : allEdges) {
-                int nA = e.getVertexA();
-                int nB = e.getVertexB();
-                double w = e.getWeight();
-                if (d[nA] > d[nB] + w) {
-                    d[nA] = d[nB] + w;
-                    p[nA] = nB;
-                }
+        d[vi.toIndex(startNode)] = 0;
+        boolean[] changed = {true};
+        for (int i = 1; i < nn && changed[0]; i++) { // one less repetitions than vertces, stop when nothing changes
+            changed[0] = false;
+            for (int iA = 0; iA < nn; iA++) {
+                final int nA = iA;
+                g.forEachNeighbor(vi.toId(nA), (v, w) -> {
+                    int nB = vi.toIndex(v);
+                    if (d[nB] > d[nA] + w) {
+                        d[nB] = d[nA] + w;
+                        p[nB] = nA;
+                        changed[0] = true;
+                    }
+                });
             }
         }
 
-        for (Edge e : allEdges) {
-            int nA = e.getVertexA();
-            int nB = e.getVertexB();
-            double w = e.getWeight();
-            if (d[nA] > d[nB] + w) {
-                throw new IllegalArgumentException( "Negative cycle in graph " + g );
+        for (int iA = 0; iA < nn; iA++) {
+            final int nA = iA;
+            g.forEachNeighbor(vi.toId(nA), (v, w) -> {
+                if (d[vi.toIndex(v)] > d[nA] + w) {
+                    throw new IllegalArgumentException( "Negative cycle in graph " + g );
+                }
+            });
+        }
+
+        return toVertexPaths(vi, d, p, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Bellman-Ford relaxing only connections of the vertices whose distance
+     * has changed, kept in a queue (SPFA). Graphs other than CompactGraph are
+     * copied into CompactGraph first.
+     *
+     * @return same as bellmanFord (predecessors may differ for paths of equal length)
+     * @throws NegativeCycleException with the cycle if one is reachable from startNode
+     */
+    public static SingleSourceGraphPaths spfa(Graph g, int startNode) {
+        if (g == null || !g.hasVertex(startNode)) {
+            return null;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        SingleSourceGraphPaths sp = BellmanFord.spfa(cg, startNode);
+        return toVertexPaths(cg.getVertexIndex(), sp.d, sp.p, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Bellman-Ford in rounds, each of them relaxes the connections of the
+     * vertices changed by the previous one in parallel (on the common
+     * ForkJoinPool). Stops after the first round which changes nothing.
+     *
+     * @return same as bellmanFord (predecessors may differ for paths of equal length)
+     * @throws NegativeCycleException with the cycle if one is reachable from startNode
+     */
+    public static SingleSourceGraphPaths bellmanFordParallel(Graph g, int startNode) {
+        if (g == null || !g.hasVertex(startNode)) {
+            return null;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        SingleSourceGraphPaths sp = BellmanFord.rounds(cg, startNode, java.util.concurrent.ForkJoinPool.commonPool());
+        return toVertexPaths(cg.getVertexIndex(), sp.d, sp.p, Double.POSITIVE_INFINITY);
+    }
+
+    private static SingleSourceGraphPaths bellmanFordCSR(CompactGraph g, int startNode) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(p, -1);
+        d[g.indexOf(startNode)] = 0;
+        boolean changed = true;
+        for (int i = 1; i < n && changed; i++) { // one less repetitions than vertces, stop when nothing changes
+            changed = false;
+            for (int u = 0; u < n; u++) {
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    if (d[tgt[k]] > d[u] + wgt[k]) {
+                        d[tgt[k]] = d[u] + wgt[k];
+                        p[tgt[k]] = u;
+                        changed = true;
+                    }
+                }
             }
         }
+        for (int u = 0; u < n; u++) {
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                if (d[tgt[k]] > d[u] + wgt[k]) {
+                    throw new IllegalArgumentException("Negative cycle in graph " + g);
+                }
+            }
+        }
+        return toVertexPaths(g.getVertexIndex(), d, p, Double.POSITIVE_INFINITY);
+    }
 
-        return new SingleSourceGraphPaths(d, p);
+    // Bellman-Ford relaxing both directions of each edge from the edge table
+    private static SingleSourceGraphPaths bellmanFordEdges(ModifiableGraph g, int startNode) {
+        VertexIndex vi = g.getVertexIndex();
+        EdgeTable et = g.getEdgeTable();
+        int n = vi.size();
+        int m = et.size();
+        int[] a = new int[m];
+        int[] b = new int[m];
+        for (int id = 0; id < m; id++) {
+            a[id] = vi.toIndex(et.getVertexA(id));
+            b[id] = vi.toIndex(et.getVertexB(id));
+        }
+        int[] p = new int[n];
+        double[] d = new double[n];
+        java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
+        java.util.Arrays.fill(p, -1);
+        d[vi.toIndex(startNode)] = 0;
+        boolean changed = true;
+        for (int i = 1; i < n && changed; i++) { // one less repetitions than vertces, stop when nothing changes
+            changed = false;
+            for (int id = 0; id < m; id++) {
+                double w = et.getWeight(id);
+                if (d[b[id]] > d[a[id]] + w) {
+                    d[b[id]] = d[a[id]] + w;
+                    p[b[id]] = a[id];
+                    changed = true;
+                }
+                if (d[a[id]] > d[b[id]] + w) {
+                    d[a[id]] = d[b[id]] + w;
+                    p[a[id]] = b[id];
+                    changed = true;
+                }
+            }
+        }
+        for (int id = 0; id < m; id++) {
+            double w = et.getWeight(id);
+            if (d[b[id]] > d[a[id]] + w || d[a[id]] > d[b[id]] + w) {
+                throw new IllegalArgumentException("Negative cycle in graph " + g);
+            }
+        }
+        return toVertexPaths(vi, d, p, Double.POSITIVE_INFINITY);
     }
 
     private static final DecimalFormat df = new DecimalFormat("0.00");
@@ -558,30 +1262,46 @@ public class GraphAlgorithms {
             return null;
         }
 
-        int nn = g.maxVertexNo() + 1;
+        VertexIndex vi = g.getVertexIndex();
+        int nn = vi.size();
         int[][] p = new int[nn][nn];
         double[][] d = new double[nn][nn];
         for (int i = 0; i < nn; i++) {
             java.util.Arrays.fill(d[i], Double.POSITIVE_INFINITY);
             java.util.Arrays.fill(p[i], -1);
-        }
-        Set<Integer> vertices = g.getVerticesNumbers();
-        for (Integer i : vertices) {
             d[i][i] = 0;
         }
-        Set<Edge> allEdges = g.getAllEdges();
-        for (Edge e : allEdges) {
-            int nA = e.getVertexA();
-            int nB = e.getVertexB();
-            double w = e.getWeight();
-            d[nA][nB] = d[nB][nA] = w;
-            p[nA][nB] = nA;
-            p[nB][nA] = nB;
+        if (g instanceof ModifiableGraph mg) {
+            EdgeTable et = mg.getEdgeTable();
+            for (int id = 0; id < et.size(); id++) {
+                int nA = vi.toIndex(et.getVertexA(id));
+                int nB = vi.toIndex(et.getVertexB(id));
+                double w = et.getWeight(id);
+                if (w < d[nA][nB]) {
+                    d[nA][nB] = w;
+                    p[nA][nB] = nA;
+                }
+                if (w < d[nB][nA]) {
+                    d[nB][nA] = w;
+                    p[nB][nA] = nB;
+                }
+            }
+        } else {
+            for (int i = 0; i < nn; i++) {
+                final int nA = i;
+                g.forEachNeighbor(vi.toId(nA), (v, w) -> {
+                    int nB = vi.toIndex(v);
+                    if (w < d[nA][nB]) {
+                        d[nA][nB] = w;
+                        p[nA][nB] = nA;
+                    }
+                });
+            }
         }
 
-        for (Integer m : vertices) {
-            for (Integer src : vertices) {
-                for (Integer dst : vertices) {
+        for (int m = 0; m < nn; m++) {
+            for (int src = 0; src < nn; src++) {
+                for (int dst = 0; dst < nn; dst++) {
                     if (d[src][dst] > d[src][m] + d[m][dst]) {
                         d[src][dst] = d[src][m] + d[m][dst];
                         p[src][dst] = p[m][dst];
@@ -590,7 +1310,236 @@ public class GraphAlgorithms {
             }
         }
 
-        return new AllToAllGraphPaths(d, p);
+        return new AllToAllGraphPaths(d, p, vi);
+    }
+
+    private static final int FW_TILE = 64;  // 64x64 doubles = 32kB, fits into L1/L2 cache
+
+    /**
+     * Floyd-Warshall algorithm on flat n*n arrays, in tiles: for each
+     * diagonal tile (k-block) first the tile itself is updated, then the
+     * tiles in its row and column, then all the others. Tiles of the second
+     * and of the third phase are independent and are updated in parallel.
+     *
+     * @return all shortest paths in flat arrays (see AllToAllGraphPaths)
+     */
+    public static AllToAllGraphPaths floydWarshallBlocked(Graph g) {
+        if (g == null || g.getNumVertices() < 1) {
+            return null;
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("GraphAlgorithms.floydWarshallBlocked: " + n + " vertices is too many for n*n matrix!");
+        }
+        double[] d = new double[n * n];
+        int[] p = new int[n * n];
+        Arrays.fill(d, Double.POSITIVE_INFINITY);
+        Arrays.fill(p, -1);
+        for (int i = 0; i < n; i++) {
+            d[i * n + i] = 0;
+        }
+        if (g instanceof ModifiableGraph mg) {
+            EdgeTable et = mg.getEdgeTable();
+            for (int id = 0; id < et.size(); id++) {
+                int nA = vi.toIndex(et.getVertexA(id));
+                int nB = vi.toIndex(et.getVertexB(id));
+                double w = et.getWeight(id);
+                if (w < d[nA * n + nB]) {
+                    d[nA * n + nB] = w;
+                    p[nA * n + nB] = nA;
+                }
+                if (w < d[nB * n + nA]) {
+                    d[nB * n + nA] = w;
+                    p[nB * n + nA] = nB;
+                }
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                final int nA = i;
+                g.forEachNeighbor(vi.toId(nA), (v, w) -> {
+                    int o = nA * n + vi.toIndex(v);
+                    if (w < d[o]) {
+                        d[o] = w;
+                        p[o] = nA;
+                    }
+                });
+            }
+        }
+        int tiles = (n + FW_TILE - 1) / FW_TILE;
+        for (int kb = 0; kb < tiles; kb++) {
+            int k = kb;
+            fwTile(d, p, n, k, k, k);
+            java.util.stream.IntStream.range(0, 2 * tiles).parallel().forEach(t -> {
+                int other = t >> 1;
+                if (other != k) {
+                    if ((t & 1) == 0) {
+                        fwTile(d, p, n, k, other, k);  // row of the diagonal tile
+                    } else {
+                        fwTile(d, p, n, other, k, k);  // column
+                    }
+                }
+            });
+            java.util.stream.IntStream.range(0, tiles * tiles).parallel().forEach(t -> {
+                int ib = t / tiles;
+                int jb = t % tiles;
+                if (ib != k && jb != k) {
+                    fwTile(d, p, n, ib, jb, k);
+                }
+            });
+        }
+        return new AllToAllGraphPaths(n, d, p, vi);
+    }
+
+    // relaxes tile (ib, jb) through vertices of k-block kb
+    private static void fwTile(double[] d, int[] p, int n, int ib, int jb, int kb) {
+        int i0 = ib * FW_TILE, i1 = Math.min(n, i0 + FW_TILE);
+        int j0 = jb * FW_TILE, j1 = Math.min(n, j0 + FW_TILE);
+        int k0 = kb * FW_TILE, k1 = Math.min(n, k0 + FW_TILE);
+        for (int k = k0; k < k1; k++) {
+            int rk = k * n;
+            for (int i = i0; i < i1; i++) {
+                int ri = i * n;
+                double dik = d[ri + k];
+                if (dik == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int j = j0; j < j1; j++) {
+                    double x = dik + d[rk + j];
+                    if (x < d[ri + j]) {
+                        d[ri + j] = x;
+                        p[ri + j] = p[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * All shortest paths, by Johnson's algorithm for sparse graphs and by
+     * floydWarshallBlocked for dense ones.
+     */
+    public static AllToAllGraphPaths allPairs(Graph g) {
+        if (g == null || g.getNumVertices() < 1) {
+            return null;
+        }
+        long n = g.getNumVertices();
+        long m = 0;
+        for (int v : g.getVerticesNumbers()) {
+            m += g.degree(v);
+        }
+        // n Dijkstras cost about n*m*log(n), Floyd-Warshall n^3
+        if (m * (64 - Long.numberOfLeadingZeros(n)) < n * n) {
+            return johnson(g);
+        }
+        return floydWarshallBlocked(g);
+    }
+
+    /**
+     * Johnson's algorithm: weights are made non-negative by vertex potentials
+     * found by Bellman-Ford (only if there are negative weights), then
+     * Dijkstra's algorithm is run from every vertex, in parallel on the
+     * common ForkJoinPool. Graphs other than CompactGraph are copied into
+     * CompactGraph first.
+     *
+     * @return all shortest paths (n*n distances and predecessors)
+     */
+    public static AllToAllGraphPaths johnson(Graph g) {
+        if (g == null || g.getNumVertices() < 1) {
+            return null;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        int n = cg.getNumVertices();
+        double[][] d = new double[n][];
+        int[][] p = new int[n][];
+        johnsonRows(cg, (s, row, pred) -> {
+            d[s] = row;
+            p[s] = pred;
+        });
+        return new AllToAllGraphPaths(d, p, cg.getVertexIndex());
+    }
+
+    /**
+     * As johnson(g), but the paths from each source are given to the
+     * consumer as soon as they are found and are not kept, so the memory
+     * needed does not grow with the square of the number of vertices.
+     * The consumer is called concurrently from the threads of the pool, in no
+     * particular order of the sources.
+     *
+     * @param consumer - gets the paths and the source vertex
+     */
+    public static void johnson(Graph g, java.util.function.ObjIntConsumer<SingleSourceGraphPaths> consumer) {
+        if (g == null || g.getNumVertices() < 1) {
+            return;
+        }
+        CompactGraph cg = g instanceof CompactGraph c ? c : new CompactGraph(g);
+        VertexIndex vi = cg.getVertexIndex();
+        johnsonRows(cg, (s, row, pred) -> consumer.accept(toVertexPaths(vi, row, pred, Double.POSITIVE_INFINITY), vi.toId(s)));
+    }
+
+    // receives the row of the source s (indices of the vertices)
+    private interface PathsRow {
+
+        void accept(int s, double[] d, int[] p);
+    }
+
+    private static void johnsonRows(CompactGraph g, PathsRow rows) {
+        int n = g.getNumVertices();
+        int[] off = g.offsets();
+        int[] tgt = g.targets();
+        double[] wgt = g.weights();
+        double[] h = new double[n];  // potentials, zero if there are no negative weights
+        double[] rw = wgt;           // reweighted connections
+        if (g.getNumConnections() > 0 && g.getMinEdgeWeight() < 0) {
+            // Bellman-Ford from an extra vertex connected to all others by zero weights
+            boolean changed = true;
+            for (int i = 0; i <= n && changed; i++) {
+                changed = false;
+                for (int u = 0; u < n; u++) {
+                    for (int k = off[u]; k < off[u + 1]; k++) {
+                        if (h[tgt[k]] > h[u] + wgt[k]) {
+                            h[tgt[k]] = h[u] + wgt[k];
+                            changed = true;
+                        }
+                    }
+                }
+                if (changed && i == n) {
+                    throw new IllegalArgumentException("Negative cycle in graph " + g);
+                }
+            }
+            rw = new double[wgt.length];
+            for (int u = 0; u < n; u++) {
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    rw[k] = Math.max(0.0, wgt[k] + h[u] - h[tgt[k]]);  // rounding must not make it negative
+                }
+            }
+        }
+        double[] w = rw;
+        java.util.stream.IntStream.range(0, n).parallel().forEach(s -> {
+            double[] d = new double[n];
+            int[] p = new int[n];
+            java.util.Arrays.fill(d, Double.POSITIVE_INFINITY);
+            java.util.Arrays.fill(p, -1);
+            HeapPQ queue = new HeapPQ(d);
+            queue.add(s, 0.0);
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                double du = d[u];
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    int v = tgt[k];
+                    if (d[v] > du + w[k]) {
+                        queue.update(v, du + w[k]);
+                        p[v] = u;
+                    }
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                if (d[v] != Double.POSITIVE_INFINITY) {
+                    d[v] += h[v] - h[s];
+                }
+            }
+            rows.accept(s, d, p);
+        });
     }
 
     public static List<List<Edge>> partition_Kernighan_Lin(Graph graph, int startNode, int iter_limit) {
@@ -737,14 +1686,7 @@ public class GraphAlgorithms {
                     continue;
                 }
 
-                double edgeWeight = 0;
-                for (Edge edge : graph.getConnectionsList(b)) {
-                    if ((edge.getVertexA() == a && edge.getVertexB() == b)
-                            || (edge.getVertexB() == a && edge.getVertexA() == b)) {
-                        edgeWeight = edge.getWeight();
-                        break;
-                    }
-                }
+                double edgeWeight = connectionWeight(graph, b, a);
                 double gain = D.get(a) + D.get(b) - 2 * edgeWeight;
                 if (gain > maxGain) {
                     maxGain = gain;
@@ -768,14 +1710,7 @@ public class GraphAlgorithms {
                     continue;
                 }
 
-                double edgeWeight = 0;
-                for (Edge edge : graph.getConnectionsList(b)) {
-                    if ((edge.getVertexA() == a && edge.getVertexB() == b)
-                            || (edge.getVertexB() == a && edge.getVertexA() == b)) {
-                        edgeWeight = edge.getWeight();
-                        break;
-                    }
-                }
+                double edgeWeight = connectionWeight(graph, b, a);
                 double gain = D.get(a) + D.get(b) - 2 * edgeWeight;
                 if (gain > maxGain) {
                     maxGain = gain;
@@ -786,6 +1721,19 @@ public class GraphAlgorithms {
         return bestSwap;
     }
 
+    // weight of the connection from v1 to v2 or 0 if there is no such connection
+    private static double connectionWeight(Graph graph, int v1, int v2) {
+        double[] weight = {0.0};
+        boolean[] found = {false};
+        graph.forEachNeighbor(v1, (v, w) -> {
+            if (v == v2 && !found[0]) {
+                weight[0] = w;
+                found[0] = true;
+            }
+        });
+        return weight[0];
+    }
+
     private static class vertexA {
 
         Integer vertexA, vertexB;
@@ -804,68 +1752,33 @@ public class GraphAlgorithms {
     }
 
     public static SparseMatrix laplacian(Graph g) {
-        Integer[] indexToVertex = g.getVerticesNumbers().toArray(new Integer[0]);
-        Arrays.sort(indexToVertex);
-        for (Integer v : indexToVertex) {
-            System.err.print(v + " ");
-        }
-        System.err.println();
-
-        Map<Integer, Integer> vertexToIndex = new HashMap<>();
-        for (int i = 0; i < indexToVertex.length; i++) {
-            vertexToIndex.put(indexToVertex[i], i);
-        }
-
-        for (Integer v : vertexToIndex.keySet()) {
-            System.err.print(v + "->" + vertexToIndex.get(v) + " ");
-        }
-        System.err.println();
+        VertexIndex vi = g.getVertexIndex();
+        System.err.println(vi);
 
-        HashMapSparseMatrix L = new HashMapSparseMatrix(indexToVertex.length);
-        for (int i = 0; i < indexToVertex.length; i++) {
-            Set<Integer> neighbours = g.getNeighbours(indexToVertex[i]);
+        HashMapSparseMatrix L = new HashMapSparseMatrix(vi.size());
+        for (int i = 0; i < vi.size(); i++) {
+            Set<Integer> neighbours = g.getNeighbours(vi.toId(i));
             L.set(i, i, neighbours.size());
             for (Integer v : neighbours) {
-                L.set(i, vertexToIndex.get(v), -1);
-                L.set(vertexToIndex.get(v), i, -1);
+                L.set(i, vi.toIndex(v), -1);
+                L.set(vi.toIndex(v), i, -1);
             }
         }
         return L.toCRSsorted();
     }
 
     public static SparseMatrix weightedLaplacian(Graph g) {
-        Integer[] indexToVertex = g.getVerticesNumbers().toArray(new Integer[0]);
-        Arrays.sort(indexToVertex);
-        /*
-        for (Integer v : indexToVertex) {
-            System.err.print(v + " ");
-        }
-        System.err.println();
-         */
-        Map<Integer, Integer> vertexToIndex = new HashMap<>();
-        for (int i = 0; i < indexToVertex.length; i++) {
-            vertexToIndex.put(indexToVertex[i], i);
-        }
-
-        /*
-        for (Integer v : vertexToIndex.keySet()) {
-            System.err.print(v + "->" + vertexToIndex.get(v) + " ");
-        }
-        System.err.println();
-         */
-        HashMapSparseMatrix L = new HashMapSparseMatrix(indexToVertex.length);
-        for (int i = 0; i < indexToVertex.length; i++) {
-            Set<Edge> edges = g.getConnectionsList(indexToVertex[i]);
-            double diag = 0.0;
-            for (Edge e : edges) {
-                diag += e.getWeight();
-            }
-            L.set(i, i, diag);
+        VertexIndex vi = g.getVertexIndex();
+        HashMapSparseMatrix L = new HashMapSparseMatrix(vi.size());
+        for (int i = 0; i < vi.size(); i++) {
+            double[] diag = {0.0};
+            g.forEachNeighbor(vi.toId(i), (v, w) -> diag[0] += w);
+            L.set(i, i, diag[0]);
         }
         Set<Edge> es = g.getAllEdges();
         for (Edge e : es) {
-            Integer iA = vertexToIndex.get(e.getVertexA());
-            Integer iB = vertexToIndex.get(e.getVertexB());
+            int iA = vi.toIndex(e.getVertexA());
+            int iB = vi.toIndex(e.getVertexB());
             double w = -e.getWeight();
             L.set(iA, iB, w);
             L.set(iB, iA, w);
@@ -918,7 +1831,7 @@ public class GraphAlgorithms {
         int[] nonWghtDeg = new int[nodes.length];
         double avg = 0.0;
         for (int i = 0; i < nonWghtDeg.length; i++) {
-            nonWghtDeg[i] = g.getNeighbours(nodes[i]).size();
+            nonWghtDeg[i] = g.degree(nodes[i]);
             avg += nonWghtDeg[i];
         }
         avg /= nodes.length;
@@ -978,7 +1891,7 @@ public class GraphAlgorithms {
         Arrays.sort(nodes);
         int[] nonWghtDeg = new int[nodes.length];
         for (int i = 0; i < nonWghtDeg.length; i++) {
-            nonWghtDeg[i] = g.getNeighbours(nodes[i]).size();
+            nonWghtDeg[i] = g.degree(nodes[i]);
         }
         Arrays.sort(nodes, (i, j) -> Integer.compare(nonWghtDeg[i], nonWghtDeg[j]));
         System.out.println("init -> " + nodes[0]);
@@ -991,7 +1904,7 @@ public class GraphAlgorithms {
         int[] nonWghtDeg = new int[nodes.length];
         double avg = 0.0;
         for (int i = 0; i < nonWghtDeg.length; i++) {
-            nonWghtDeg[i] = g.getNeighbours(nodes[i]).size();
+            nonWghtDeg[i] = g.degree(nodes[i]);
             avg += nonWghtDeg[i];
         }
         avg /= nodes.length;
@@ -4,6 +4,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.HashSet;
 
@@ -13,6 +19,45 @@ import java.util.HashSet;
  */
 public class GraphIO {
 
+    // binary CSR file, little endian, sections aligned to 8 bytes:
+    // header:  int magic, int version, int flags (BINARY_HAS_IDS | BINARY_DIRECTED), int n, long m, double minWeight, double maxWeight, reserved up to 64 bytes
+    // ids:     int[n] vertex numbers in ascending order (only if flags & BINARY_HAS_IDS)
+    // offsets: long[n+1] - connections of i-th vertex are at offsets[i]..offsets[i+1]-1
+    // targets: int[m] indices (not numbers) of the neighbours
+    // weights: double[m]
+    private static final int BINARY_MAGIC = 0x5352474A; // "JGRS"
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HAS_IDS = 1;
+    private static final int BINARY_DIRECTED = 2;
+    private static final int BINARY_HEADER_SIZE = 64;
+
+    // contraction hierarchy, little endian, sections aligned to 8 bytes:
+    // header:  int magic, int version, int flags (BINARY_HAS_IDS | BINARY_DIRECTED), int n, long mUp, long mDown, reserved up to 64 bytes
+    // ids:     int[n] vertex numbers in ascending order (only if flags & BINARY_HAS_IDS)
+    // ranks:   int[n] order of contraction
+    // up:      int[n+1] offsets, int[mUp] targets, double[mUp] weights, int[mUp] middles (-1 for original connections)
+    // down:    same with mDown connections
+    private static final int HIERARCHY_MAGIC = 0x4843474A; // "JGCH"
+    private static final int HIERARCHY_VERSION = 1;
+
+    // landmarks (ALT), little endian, sections aligned to 8 bytes:
+    // header:    int magic, int version, int flags (BINARY_HAS_IDS | BINARY_DIRECTED), int n, int k, reserved up to 64 bytes
+    // ids:       int[n] vertex numbers in ascending order (only if flags & BINARY_HAS_IDS)
+    // landmarks: int[k] vertex numbers
+    // from:      float[n*k] distances from the landmarks, k values for each vertex
+    // to:        float[n*k] distances to the landmarks (only if flags & BINARY_DIRECTED)
+    private static final int LANDMARKS_MAGIC = 0x4D4C474A; // "JGLM"
+    private static final int LANDMARKS_VERSION = 1;
+
+    // distance table, little endian, sections aligned to 8 bytes:
+    // header:    int magic, int version, int flags (DISTANCES_FLOAT), int rows, int columns, reserved up to 64 bytes
+    // sources:   int[rows] vertex numbers
+    // targets:   int[columns] vertex numbers
+    // distances: double[rows*columns] row after row (float if flags & DISTANCES_FLOAT)
+    private static final int DISTANCES_MAGIC = 0x5444474A; // "JGDT"
+    private static final int DISTANCES_VERSION = 1;
+    private static final int DISTANCES_FLOAT = 1;
+
     public static void saveBasicGraph(BasicGraph g, PrintWriter pw) throws IOException {
         // file format: List of adjacency - first line contains # of nodes, next lines list of the edges connected
         // <n_nodes>
@@ -114,19 +159,35 @@ public class GraphIO {
             String[] words = br.readLine().trim().split("\\s+");
             int numColumns = Integer.parseInt(words[0]);
             int numRows = Integer.parseInt(words[1]);
-            HashMap<Integer, HashSet<Edge>> connectLists = new HashMap<>();
+            // connections are stored in a lattice, unless one of them does not fit
+            GridGraph lattice = new GridGraph(numColumns, numRows, true);
+            HashMap<Integer, HashSet<Edge>> connectLists = null;
             //System.out.println(numColumns+" "+numRows);
             for (int i = 0; i < numColumns * numRows; i++) {
                 HashSet<Edge> edges = new HashSet<>();
                 words = br.readLine().trim().split("[\\s:]+");
                 //System.out.println(i+":"+words.length);
                 for (int j = 0; j + 1 < words.length; j += 2) {
-                    Edge e = new Edge(i, Integer.parseInt(words[j]), Double.parseDouble(words[j + 1]));
-                    edges.add(e);
+                    int to = Integer.parseInt(words[j]);
+                    double w = Double.parseDouble(words[j + 1]);
+                    if (connectLists == null && !lattice.setLatticeWeight(i, to, w)) {
+                        connectLists = lattice.latticeConnectLists();
+                        edges = connectLists.get(i);
+                    }
+                    if (connectLists != null) {
+                        edges.add(new Edge(i, to, w));
+                    }
+                }
+                if (connectLists != null) {
+                    connectLists.put(i, edges);
                 }
-                connectLists.put(i, edges);
             }
-            return new GridGraph(numColumns, numRows, connectLists);
+            if (connectLists != null) {
+                return new GridGraph(numColumns, numRows, connectLists);
+            }
+            lattice.compactLattice();
+            lattice.updateEdgesWeights();
+            return lattice;
         } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
             throw new IOException("GridGraph can not read graph: " + e);
         }
@@ -151,4 +212,506 @@ public class GraphIO {
         pw.close();
     }
 
+    /**
+     * Fast version of readEdgeList: the file is parsed in parallel directly
+     * from memory-mapped bytes and the graph is built as CSR (names of the
+     * edges are not kept).
+     *
+     * @param path - file in the format of readEdgeList
+     * @return the graph
+     */
+    public static CompactGraph loadEdgeList(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            TextGraphParser.Connections c = TextGraphParser.parse(ch, 0, TextGraphParser.Format.EDGE_LIST);
+            return CompactGraph.fromConnections(null, c.from, c.to, c.weights, c.size, true);
+        }
+    }
+
+    /**
+     * Fast version of readBasicGraph (see loadEdgeList): i-th line lists the
+     * connections leading from vertex i.
+     *
+     * @param path - file in the format written by saveBasicGraph
+     * @return the graph
+     */
+    public static CompactGraph loadAdjacencyList(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            int n = TextGraphParser.readInts(ch, 0, 1)[0];
+            TextGraphParser.Connections c = parseLines(ch, n);
+            try {
+                return CompactGraph.fromConnections(VertexIndex.identity(n), c.from, c.to, c.weights, c.size, false);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Can not read graph: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fast version of readGridGraph (see loadEdgeList).
+     *
+     * @param path - file in the format written by saveGridGraph
+     * @return the graph
+     */
+    public static GridGraph loadGridGraph(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            int[] header = TextGraphParser.readInts(ch, 0, 2);
+            int numColumns = header[0];
+            int numRows = header[1];
+            TextGraphParser.Connections c = parseLines(ch, numColumns * numRows);
+            GridGraph lattice = new GridGraph(numColumns, numRows, true);
+            int k = 0;
+            while (k < c.size && lattice.setLatticeWeight(c.from[k], c.to[k], c.weights[k])) {
+                k++;
+            }
+            if (k < c.size) {  // some connection does not fit the lattice
+                HashMap<Integer, HashSet<Edge>> connectLists = new HashMap<>();
+                for (int i = 0; i < numColumns * numRows; i++) {
+                    connectLists.put(i, new HashSet<>());
+                }
+                for (k = 0; k < c.size; k++) {
+                    connectLists.get(c.from[k]).add(new Edge(c.from[k], c.to[k], c.weights[k]));
+                }
+                return new GridGraph(numColumns, numRows, connectLists);
+            }
+            lattice.compactLattice();
+            lattice.updateEdgesWeights();
+            return lattice;
+        }
+    }
+
+    // parses lines following the header, n of them must describe the vertices
+    private static TextGraphParser.Connections parseLines(FileChannel ch, int n) throws IOException {
+        TextGraphParser.Connections c = TextGraphParser.parse(ch, TextGraphParser.nextLine(ch, 0), TextGraphParser.Format.ADJACENCY);
+        if (c.lines < n) {
+            throw new IOException("Can not read graph: " + n + " vertices expected, " + c.lines + " lines found");
+        }
+        for (int k = 0; k < c.size; k++) {
+            if (c.from[k] >= n) {
+                throw new IOException("Can not read graph: connections given for vertex " + c.from[k] + " (only " + n + " expected)");
+            }
+        }
+        return c;
+    }
+
+    public static void writeBinary(Graph g, Path path) throws IOException {
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        long[] offsets = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + g.degree(vi.toId(i));
+        }
+        long m = offsets[n];
+        int flags = (vi.isIdentity() ? 0 : BINARY_HAS_IDS) | (g.isDirected() ? BINARY_DIRECTED : 0);
+        long idsPos = BINARY_HEADER_SIZE;
+        long offsetsPos = idsPos + (vi.isIdentity() ? 0 : align8(4L * n));
+        long targetsPos = offsetsPos + 8L * (n + 1);
+        long weightsPos = targetsPos + align8(4L * m);
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(flags).putInt(n).putLong(m);
+            header.putDouble(g.getMinEdgeWeight()).putDouble(g.getMaxEdgeWeight());
+            header.position(BINARY_HEADER_SIZE);
+            writeFully(ch, header, 0);
+
+            BinarySection out = new BinarySection(ch, idsPos);
+            if (!vi.isIdentity()) {
+                for (int i = 0; i < n; i++) {
+                    out.buffer().putInt(vi.toId(i));
+                }
+                out.flush();
+            }
+            out = new BinarySection(ch, offsetsPos);
+            for (long o : offsets) {
+                out.buffer().putLong(o);
+            }
+            out.flush();
+
+            BinarySection tOut = new BinarySection(ch, targetsPos);
+            BinarySection wOut = new BinarySection(ch, weightsPos);
+            long[] count = {0};
+            for (int i = 0; i < n; i++) {
+                g.forEachNeighbor(vi.toId(i), (v, w) -> {
+                    try {
+                        tOut.buffer().putInt(vi.toIndex(v));
+                        wOut.buffer().putDouble(w);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                if (count[0] != offsets[i + 1]) {
+                    throw new IOException("Can not write graph: degree of vertex " + vi.toId(i) + " does not match its connections");
+                }
+            }
+            tOut.flush();
+            wOut.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static MappedGraph mapBinary(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (ch.read(header, header.position()) < 0) {
+                    throw new IOException("Can not map graph: file too short");
+                }
+            }
+            header.flip();
+            if (header.getInt() != BINARY_MAGIC) {
+                throw new IOException("Can not map graph: " + path + " is not a binary graph file");
+            }
+            int version = header.getInt();
+            if (version != BINARY_VERSION) {
+                throw new IOException("Can not map graph: unsupported version " + version);
+            }
+            int flags = header.getInt();
+            int n = header.getInt();
+            long m = header.getLong();
+            double minWeight = header.getDouble();
+            double maxWeight = header.getDouble();
+            boolean hasIds = (flags & BINARY_HAS_IDS) != 0;
+            if (n < 0 || m < 0 || m > ch.size() / 12) {  // each connection takes 4 + 8 bytes
+                throw new IOException("Can not map graph: wrong sizes in the header");
+            }
+
+            long idsPos = BINARY_HEADER_SIZE;
+            long offsetsPos = idsPos + (hasIds ? align8(4L * n) : 0);
+            long targetsPos = offsetsPos + 8L * (n + 1);
+            long weightsPos = targetsPos + align8(4L * m);
+            if (ch.size() < weightsPos + 8L * m) {
+                throw new IOException("Can not map graph: file is truncated");
+            }
+            BigBuffer offsets = BigBuffer.map(ch, offsetsPos, 8L * (n + 1));
+            if (offsets.getLong(0) != 0 || offsets.getLong(n) != m) {
+                throw new IOException("Can not map graph: offsets do not match the number of connections");
+            }
+            return new MappedGraph(n,
+                    hasIds ? BigBuffer.map(ch, idsPos, 4L * n) : null,
+                    offsets,
+                    BigBuffer.map(ch, targetsPos, 4L * m),
+                    BigBuffer.map(ch, weightsPos, 8L * m),
+                    minWeight, maxWeight, (flags & BINARY_DIRECTED) != 0);
+        }
+    }
+
+    public static void writeHierarchy(ContractionHierarchy ch, Path path) throws IOException {
+        VertexIndex vi = ch.getVertexIndex();
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(HIERARCHY_MAGIC).putInt(HIERARCHY_VERSION);
+            header.putInt((vi.isIdentity() ? 0 : BINARY_HAS_IDS) | (ch.isDirected() ? BINARY_DIRECTED : 0));
+            header.putInt(vi.size()).putLong(ch.upTargets().length).putLong(ch.downTargets().length);
+            header.position(BINARY_HEADER_SIZE);
+            writeFully(fc, header, 0);
+            BinarySection out = new BinarySection(fc, BINARY_HEADER_SIZE);
+            if (!vi.isIdentity()) {
+                out.putInts(vi.ids());
+            }
+            out.putInts(ch.ranks());
+            out.putInts(ch.upOffsets());
+            out.putInts(ch.upTargets());
+            out.putDoubles(ch.upWeights());
+            out.putInts(ch.upMiddles());
+            out.putInts(ch.downOffsets());
+            out.putInts(ch.downTargets());
+            out.putDoubles(ch.downWeights());
+            out.putInts(ch.downMiddles());
+            out.flush();
+        }
+    }
+
+    public static ContractionHierarchy readHierarchy(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(fc);
+            if (in.getInt() != HIERARCHY_MAGIC) {
+                throw new IOException("Can not read hierarchy: " + path + " is not a contraction hierarchy file");
+            }
+            int version = in.getInt();
+            if (version != HIERARCHY_VERSION) {
+                throw new IOException("Can not read hierarchy: unsupported version " + version);
+            }
+            int flags = in.getInt();
+            int n = in.getInt();
+            long mUp = in.getLong();
+            long mDown = in.getLong();
+            if (n < 0 || mUp < 0 || mDown < 0 || mUp > Integer.MAX_VALUE - 8 || mDown > Integer.MAX_VALUE - 8) {
+                throw new IOException("Can not read hierarchy: wrong sizes in the header");
+            }
+            in.skip(BINARY_HEADER_SIZE - 32);
+            VertexIndex vi = (flags & BINARY_HAS_IDS) != 0 ? new VertexIndex(in.getInts(n)) : VertexIndex.identity(n);
+            int[] rank = in.getInts(n);
+            int[] upOffsets = in.getInts(n + 1);
+            int[] upTargets = in.getInts((int) mUp);
+            double[] upWeights = in.getDoubles((int) mUp);
+            int[] upMiddles = in.getInts((int) mUp);
+            int[] downOffsets = in.getInts(n + 1);
+            int[] downTargets = in.getInts((int) mDown);
+            double[] downWeights = in.getDoubles((int) mDown);
+            int[] downMiddles = in.getInts((int) mDown);
+            if (upOffsets[n] != mUp || downOffsets[n] != mDown) {
+                throw new IOException("Can not read hierarchy: offsets do not match the number of connections");
+            }
+            return new ContractionHierarchy(vi, (flags & BINARY_DIRECTED) != 0, rank,
+                    upOffsets, upTargets, upWeights, upMiddles, downOffsets, downTargets, downWeights, downMiddles);
+        }
+    }
+
+    /**
+     * @return path of the landmarks file kept next to given graph file
+     */
+    public static Path landmarksPath(Path graphPath) {
+        return graphPath.resolveSibling(graphPath.getFileName() + ".landmarks");
+    }
+
+    public static void writeLandmarks(Landmarks lm, Path path) throws IOException {
+        VertexIndex vi = lm.getVertexIndex();
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(LANDMARKS_MAGIC).putInt(LANDMARKS_VERSION);
+            header.putInt((vi.isIdentity() ? 0 : BINARY_HAS_IDS) | (lm.isDirected() ? BINARY_DIRECTED : 0));
+            header.putInt(vi.size()).putInt(lm.size());
+            header.position(BINARY_HEADER_SIZE);
+            writeFully(fc, header, 0);
+            BinarySection out = new BinarySection(fc, BINARY_HEADER_SIZE);
+            if (!vi.isIdentity()) {
+                out.putInts(vi.ids());
+            }
+            int[] landmarks = new int[lm.size()];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = lm.getLandmark(i);
+            }
+            out.putInts(landmarks);
+            out.putFloats(lm.fromTable());
+            if (lm.isDirected()) {
+                out.putFloats(lm.toTable());
+            }
+            out.flush();
+        }
+    }
+
+    public static Landmarks readLandmarks(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(fc);
+            if (in.getInt() != LANDMARKS_MAGIC) {
+                throw new IOException("Can not read landmarks: " + path + " is not a landmarks file");
+            }
+            int version = in.getInt();
+            if (version != LANDMARKS_VERSION) {
+                throw new IOException("Can not read landmarks: unsupported version " + version);
+            }
+            int flags = in.getInt();
+            int n = in.getInt();
+            int k = in.getInt();
+            if (n < 0 || k < 0 || (long) n * k > Integer.MAX_VALUE - 8) {
+                throw new IOException("Can not read landmarks: wrong sizes in the header");
+            }
+            in.skip(BINARY_HEADER_SIZE - 20);
+            VertexIndex vi = (flags & BINARY_HAS_IDS) != 0 ? new VertexIndex(in.getInts(n)) : VertexIndex.identity(n);
+            int[] landmarks = in.getInts(k);
+            float[] from = in.getFloats(n * k);
+            boolean directed = (flags & BINARY_DIRECTED) != 0;
+            float[] to = directed ? in.getFloats(n * k) : from;
+            return new Landmarks(vi, directed, landmarks, from, to);
+        }
+    }
+
+    /**
+     * Writes the table, with distances rounded to floats if asFloats is true
+     * (half of the size).
+     */
+    public static void writeDistanceTable(DistanceTable table, Path path, boolean asFloats) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(DISTANCES_MAGIC).putInt(DISTANCES_VERSION).putInt(asFloats ? DISTANCES_FLOAT : 0);
+            header.putInt(table.getNumSources()).putInt(table.getNumTargets());
+            header.position(BINARY_HEADER_SIZE);
+            writeFully(fc, header, 0);
+            BinarySection out = new BinarySection(fc, BINARY_HEADER_SIZE);
+            out.putInts(table.sources());
+            out.putInts(table.targets());
+            double[] d = table.getDistances();
+            if (asFloats) {
+                for (double x : d) {
+                    out.buffer().putFloat((float) x);
+                }
+                if (d.length % 2 != 0) {
+                    out.buffer().putFloat(0);
+                }
+            } else {
+                out.putDoubles(d);
+            }
+            out.flush();
+        }
+    }
+
+    public static DistanceTable readDistanceTable(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(fc);
+            if (in.getInt() != DISTANCES_MAGIC) {
+                throw new IOException("Can not read distance table: " + path + " is not a distance table file");
+            }
+            int version = in.getInt();
+            if (version != DISTANCES_VERSION) {
+                throw new IOException("Can not read distance table: unsupported version " + version);
+            }
+            int flags = in.getInt();
+            int rows = in.getInt();
+            int columns = in.getInt();
+            if (rows < 0 || columns < 0 || (long) rows * columns > Integer.MAX_VALUE - 8) {
+                throw new IOException("Can not read distance table: wrong sizes in the header");
+            }
+            in.skip(BINARY_HEADER_SIZE - 20);
+            int[] sources = in.getInts(rows);
+            int[] targets = in.getInts(columns);
+            double[] d;
+            if ((flags & DISTANCES_FLOAT) != 0) {
+                float[] f = in.getFloats(rows * columns);
+                d = new double[f.length];
+                for (int i = 0; i < f.length; i++) {
+                    d[i] = f[i];
+                }
+            } else {
+                d = in.getDoubles(rows * columns);
+            }
+            return new DistanceTable(sources, targets, d);
+        }
+    }
+
+    private static long align8(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b, long position) throws IOException {
+        b.flip();
+        while (b.hasRemaining()) {
+            position += ch.write(b, position);
+        }
+        b.clear();
+    }
+
+    // sequential writer of one section of the binary file
+    private static class BinarySection {
+
+        private final FileChannel ch;
+        private long position;
+        private final ByteBuffer b = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        BinarySection(FileChannel ch, long position) {
+            this.ch = ch;
+            this.position = position;
+        }
+
+        // returns the buffer with room for at least one more value
+        ByteBuffer buffer() throws IOException {
+            if (b.remaining() < 8) {
+                flush();
+            }
+            return b;
+        }
+
+        void flush() throws IOException {
+            long size = b.position();
+            writeFully(ch, b, position);
+            position += size;
+        }
+
+        // writes the array padded to 8 bytes
+        void putInts(int[] a) throws IOException {
+            for (int v : a) {
+                buffer().putInt(v);
+            }
+            if (a.length % 2 != 0) {
+                buffer().putInt(0);
+            }
+        }
+
+        void putDoubles(double[] a) throws IOException {
+            for (double v : a) {
+                buffer().putDouble(v);
+            }
+        }
+
+        void putFloats(float[] a) throws IOException {
+            for (float v : a) {
+                buffer().putFloat(v);
+            }
+            if (a.length % 2 != 0) {
+                buffer().putFloat(0);
+            }
+        }
+    }
+
+    // sequential reader of the binary file, counterpart of BinarySection
+    private static class BinaryInput {
+
+        private final FileChannel ch;
+        private final ByteBuffer b = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        BinaryInput(FileChannel ch) {
+            this.ch = ch;
+            b.limit(0);
+        }
+
+        // makes at least given number of bytes available
+        private ByteBuffer buffer(int bytes) throws IOException {
+            if (b.remaining() < bytes) {
+                b.compact();
+                while (b.position() < bytes) {
+                    if (ch.read(b) < 0) {
+                        throw new IOException("Can not read file: it is truncated");
+                    }
+                }
+                b.flip();
+            }
+            return b;
+        }
+
+        int getInt() throws IOException {
+            return buffer(4).getInt();
+        }
+
+        long getLong() throws IOException {
+            return buffer(8).getLong();
+        }
+
+        void skip(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) {
+                buffer(1).get();
+            }
+        }
+
+        // reads the array padded to 8 bytes
+        int[] getInts(int count) throws IOException {
+            int[] a = new int[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = buffer(4).getInt();
+            }
+            if (count % 2 != 0) {
+                buffer(4).getInt();
+            }
+            return a;
+        }
+
+        double[] getDoubles(int count) throws IOException {
+            double[] a = new double[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = buffer(8).getDouble();
+            }
+            return a;
+        }
+
+        float[] getFloats(int count) throws IOException {
+            float[] a = new float[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = buffer(4).getFloat();
+            }
+            if (count % 2 != 0) {
+                buffer(4).getFloat();
+            }
+            return a;
+        }
+    }
 }
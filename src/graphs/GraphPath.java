@@ -0,0 +1,51 @@
+package graphs;
+
+import java.util.ArrayList;
+
+/**
+ * Shortest path between two vertices
+ *
+ * @author jstar
+ */
+public class GraphPath {
+
+    public final int source, target;
+    public final double distance;   // Double.POSITIVE_INFINITY if target can not be reached
+    public final int[] vertices;    // source, ..., target; empty if target can not be reached
+    public final int settled;       // number of vertices settled by the search
+
+    public GraphPath(int source, int target, double distance, int[] vertices, int settled) {
+        this.source = source;
+        this.target = target;
+        this.distance = distance;
+        this.vertices = vertices;
+        this.settled = settled;
+    }
+
+    /**
+     * @return true if the target is reachable from the source
+     */
+    public boolean exists() {
+        return vertices.length > 0;
+    }
+
+    /**
+     * @return the vertices as list, the form used by the GUIs to draw paths
+     */
+    public ArrayList<Integer> toList() {
+        ArrayList<Integer> list = new ArrayList<>(vertices.length);
+        for (int v : vertices) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder().append(source).append("->").append(target).append(": ").append(distance).append(" [");
+        for (int i = 0; i < vertices.length; i++) {
+            s.append(i > 0 ? " " : "").append(vertices[i]);
+        }
+        return s.append("]").toString();
+    }
+}
@@ -3,8 +3,17 @@ package graphs;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 /**
+ * Graph of a rectangular grid: vertex (r,c) is numbered c*numRows+r.
+ *
+ * Grids which connect only neighbouring vertices (4-neighbour lattice) are
+ * stored without Edge objects: weight of connection between n and n+1 (next
+ * row) is kept in vWeights[n], between n and n+numRows (next column) in
+ * hWeights[n], missing connections are NaN. For directed lattices the
+ * connections leading back (n+1 -> n, n+numRows -> n) are kept in separate
+ * arrays. Other grids use the connection lists of BasicGraph.
  *
  * @author jstar
  */
@@ -16,34 +25,27 @@ public class GridGraph extends BasicGraph {
 
     private double minEdgeWeight, maxEdgeWeight;
 
+    // lattice storage, null if connection lists are used
+    private double[] vWeights, hWeights;        // n -> n+1, n -> n+numRows
+    private double[] vBackWeights, hBackWeights; // n+1 -> n, n+numRows -> n; null for undirected lattice
+
+    private VertexIndex latticeIndex;
+
     public GridGraph() {
         super();
         numColumns = numRows = 0;
     }
 
     public GridGraph(int nC, int nR, double wMin, double wMax, double avgEdgesPerNode) {
-        super();
-        numColumns = nC;
-        numRows = nR;
-        nextVertexNo = numColumns * numRows;
-        int nMax = numColumns * numRows;
+        this(nC, nR, false);
         double dW = wMax - wMin;
-        for (int c = 0; c < numColumns; c++) {
-            for (int r = 0; r < numRows; r++) {
-                int nn = c * numRows + r;
-                connectLists.put(nn, new HashSet<>());
-            }
-        }
         for (int c = 0; c < numColumns; c++) {
             for (int r = 1; r < numRows; r++) {
                 int n2 = c * numRows + r;
                 int n1 = n2 - 1;
-                HashSet<Edge> l1 = connectLists.get(n1);
-                HashSet<Edge> l2 = connectLists.get(n2);
                 double w12 = wMin + dW * rand.nextDouble();
                 if (rand.nextDouble() < avgEdgesPerNode / 4) {
-                    l1.add(new Edge(n1, n2, w12));
-                    l2.add(new Edge(n2, n1, w12));
+                    vWeights[n1] = w12;
                 }
             }
         }
@@ -51,12 +53,9 @@ public class GridGraph extends BasicGraph {
             for (int r = 0; r < numRows; r++) {
                 int n2 = c * numRows + r;
                 int n1 = n2 - numRows;
-                HashSet<Edge> l1 = connectLists.get(n1);
-                HashSet<Edge> l2 = connectLists.get(n2);
                 double w12 = wMin + dW * rand.nextDouble();
                 if (rand.nextDouble() < avgEdgesPerNode / 4) {
-                    l1.add(new Edge(n1, n2, w12));
-                    l2.add(new Edge(n2, n1, w12));
+                    hWeights[n1] = w12;
                 }
             }
         }
@@ -87,6 +86,87 @@ public class GridGraph extends BasicGraph {
         updateEdgesWeights();
     }
 
+    /**
+     * Creates lattice without any connections (see setLatticeWeight).
+     *
+     * @param nC - number of columns
+     * @param nR - number of rows
+     * @param directed - true if connections in opposite directions may differ
+     */
+    protected GridGraph(int nC, int nR, boolean directed) {
+        super();
+        numColumns = nC;
+        numRows = nR;
+        nextVertexNo = numColumns * numRows;
+        vWeights = emptyWeights(nextVertexNo);
+        hWeights = emptyWeights(nextVertexNo);
+        if (directed) {
+            vBackWeights = emptyWeights(nextVertexNo);
+            hBackWeights = emptyWeights(nextVertexNo);
+        }
+    }
+
+    private static double[] emptyWeights(int n) {
+        double[] w = new double[n];
+        java.util.Arrays.fill(w, Double.NaN);
+        return w;
+    }
+
+    /**
+     * @return true if connections are stored in lattice arrays
+     */
+    public boolean isLattice() {
+        return vWeights != null;
+    }
+
+    /**
+     * Sets weight of connection from vertex "from" to its neighbour "to" in a lattice.
+     * For undirected lattice the opposite connection gets the same weight.
+     *
+     * @return false if the graph is not a lattice or "to" is not a neighbour of "from"
+     */
+    boolean setLatticeWeight(int from, int to, double weight) {
+        if (!isLattice() || from < 0 || from >= nextVertexNo || to < 0 || to >= nextVertexNo) {
+            return false;
+        }
+        if (to == from + 1 && row(from) < numRows - 1) {
+            vWeights[from] = weight;
+        } else if (to == from - 1 && row(from) > 0) {
+            (vBackWeights == null ? vWeights : vBackWeights)[to] = weight;
+        } else if (to == from + numRows) {
+            hWeights[from] = weight;
+        } else if (to == from - numRows) {
+            (hBackWeights == null ? hWeights : hBackWeights)[to] = weight;
+        } else {
+            return false;
+        }
+        minEdgeWeight = maxEdgeWeight = 0.0;  // will be recalculated when needed
+        return true;
+    }
+
+    /**
+     * Drops the arrays of backward connections of directed lattice if they
+     * repeat the forward ones, which makes the lattice undirected.
+     */
+    void compactLattice() {
+        if (vBackWeights != null
+                && java.util.Arrays.equals(vWeights, vBackWeights)
+                && java.util.Arrays.equals(hWeights, hBackWeights)) {
+            vBackWeights = hBackWeights = null;
+        }
+    }
+
+    /**
+     * @return connection lists equivalent to the lattice
+     */
+    HashMap<Integer, HashSet<Edge>> latticeConnectLists() {
+        HashMap<Integer, HashSet<Edge>> lists = new HashMap<>();
+        for (int n = 0; n < nextVertexNo; n++) {
+            lists.put(n, getConnectionsList(n));
+        }
+        return lists;
+    }
+
     /**
      * @return the node number given row and column
      */
@@ -116,6 +196,176 @@ public class GridGraph extends BasicGraph {
         return numColumns * numRows;
     }
 
+    /**
+     * @return true for lattice with different weights of opposite connections
+     * or for connection lists which are not symmetric
+     */
+    @Override
+    public boolean isDirected() {
+        return isLattice() ? vBackWeights != null : super.isDirected();
+    }
+
+    /**
+     * @return graph with all connections reversed, a lattice shares the
+     * weights with this one
+     */
+    @Override
+    Graph reverse() {
+        if (!isLattice()) {
+            return super.reverse();
+        }
+        if (vBackWeights == null) {
+            return this;
+        }
+        return new GridGraph(numColumns, numRows, vBackWeights, hBackWeights, vWeights, hWeights);
+    }
+
+    private GridGraph(int nC, int nR, double[] vWeights, double[] hWeights, double[] vBackWeights, double[] hBackWeights) {
+        super();
+        numColumns = nC;
+        numRows = nR;
+        nextVertexNo = numColumns * numRows;
+        this.vWeights = vWeights;
+        this.hWeights = hWeights;
+        this.vBackWeights = vBackWeights;
+        this.hBackWeights = hBackWeights;
+    }
+
+    @Override
+    public boolean hasVertex(int number) {
+        if (!isLattice()) {
+            return super.hasVertex(number);
+        }
+        return number >= 0 && number < nextVertexNo;
+    }
+
+    @Override
+    public Set<Integer> getVerticesNumbers() {
+        if (!isLattice()) {
+            return super.getVerticesNumbers();
+        }
+        return getVertexIndex().asSet();
+    }
+
+    @Override
+    public VertexIndex getVertexIndex() {
+        if (!isLattice()) {
+            return super.getVertexIndex();
+        }
+        if (latticeIndex == null) {
+            latticeIndex = VertexIndex.identity(nextVertexNo);
+        }
+        return latticeIndex;
+    }
+
+    @Override
+    public Set<Edge> getAllEdges() {
+        if (!isLattice()) {
+            return super.getAllEdges();
+        }
+        Set<Edge> all = new HashSet<>();
+        for (int n = 0; n < nextVertexNo; n++) {
+            final int from = n;
+            forEachNeighbor(n, (v, w) -> all.add(new Edge(from, v, w)));
+        }
+        return all;
+    }
+
+    @Override
+    public HashSet<Edge> getConnectionsList(int n) {
+        if (!isLattice()) {
+            return super.getConnectionsList(n);
+        }
+        HashSet<Edge> s = new HashSet<>();
+        if (hasVertex(n)) {
+            forEachNeighbor(n, (v, w) -> s.add(new Edge(n, v, w)));
+        }
+        return s;
+    }
+
+    @Override
+    public void forEachNeighbor(int n, IntDoubleConsumer consumer) {
+        if (!isLattice()) {
+            super.forEachNeighbor(n, consumer);
+            return;
+        }
+        if (n < 0 || n >= nextVertexNo) {
+            return;
+        }
+        int c = n / numRows;
+        int r = n - c * numRows;
+        double w;
+        if (r > 0 && !Double.isNaN(w = (vBackWeights == null ? vWeights : vBackWeights)[n - 1])) {
+            consumer.accept(n - 1, w);
+        }
+        if (r < numRows - 1 && !Double.isNaN(w = vWeights[n])) {
+            consumer.accept(n + 1, w);
+        }
+        if (c > 0 && !Double.isNaN(w = (hBackWeights == null ? hWeights : hBackWeights)[n - numRows])) {
+            consumer.accept(n - numRows, w);
+        }
+        if (c < numColumns - 1 && !Double.isNaN(w = hWeights[n])) {
+            consumer.accept(n + numRows, w);
+        }
+    }
+
+    @Override
+    public int degree(int n) {
+        if (!isLattice()) {
+            return super.degree(n);
+        }
+        int[] d = {0};
+        forEachNeighbor(n, (v, w) -> d[0]++);
+        return d[0];
+    }
+
+    @Override
+    public double getMinEdgeWeight() {
+        if (!isLattice()) {
+            return super.getMinEdgeWeight();
+        }
+        if (minEdgeWeight == 0.0 && maxEdgeWeight == 0.0) {
+            updateEdgesWeights();
+        }
+        return minEdgeWeight;
+    }
+
+    @Override
+    public double getMaxEdgeWeight() {
+        if (!isLattice()) {
+            return super.getMaxEdgeWeight();
+        }
+        if (minEdgeWeight == 0.0 && maxEdgeWeight == 0.0) {
+            updateEdgesWeights();
+        }
+        return maxEdgeWeight;
+    }
+
+    @Override
+    protected void updateEdgesWeights() {
+        if (!isLattice()) {
+            super.updateEdgesWeights();
+            return;
+        }
+        minEdgeWeight = Double.POSITIVE_INFINITY;
+        maxEdgeWeight = Double.NEGATIVE_INFINITY;
+        for (double[] ws : new double[][]{vWeights, hWeights, vBackWeights, hBackWeights}) {
+            if (ws != null) {
+                for (double w : ws) {
+                    if (w < minEdgeWeight) {  // false for NaN
+                        minEdgeWeight = w;
+                    }
+                    if (w > maxEdgeWeight) {
+                        maxEdgeWeight = w;
+                    }
+                }
+            }
+        }
+        if (minEdgeWeight == Double.POSITIVE_INFINITY && maxEdgeWeight == Double.NEGATIVE_INFINITY) {
+            minEdgeWeight = maxEdgeWeight = 0.0;
+        }
+    }
+
     /**
      * @return the label of given node
      */
@@ -144,14 +394,14 @@ public class GridGraph extends BasicGraph {
 
     @Override
     public String toString() {
-        String s = new String(""+ numColumns + ' ' + numRows +'\n');
-        for (Integer i : connectLists.keySet()) {
-            s += "\n\t" + i + ":";
-            for (Edge e : connectLists.get(i)) {
-                s += " " + e;
+        StringBuilder s = new StringBuilder().append(numColumns).append(' ').append(numRows).append('\n');
+        for (Integer i : getVerticesNumbers()) {
+            s.append("\n\t").append(i).append(":");
+            for (Edge e : getConnectionsList(i)) {
+                s.append(" ").append(e);
             }
         }
-        return s;
+        return s.toString();
     }
 
 }
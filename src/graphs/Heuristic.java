@@ -0,0 +1,75 @@
+package graphs;
+
+/**
+ * Lower estimate of the distance between two vertices used by A* search
+ * (see GraphAlgorithms.aStar). It must never overestimate the real distance;
+ * Double.POSITIVE_INFINITY means that the target can not be reached at all.
+ *
+ * @author jstar
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    public double estimate(int vertex, int target);
+
+    /**
+     * @return estimate equal to 0 - A* works like Dijkstra's algorithm
+     */
+    public static Heuristic zero() {
+        return (v, t) -> 0.0;
+    }
+
+    /**
+     * Manhattan distance scaled so that no connection of g is shorter than
+     * the estimate between its ends (the scale is the minimum of
+     * weight/(rows + columns crossed) over the connections). On a lattice
+     * each step changes the row or the column by one and the scale is
+     * g.getMinEdgeWeight(); longer connections of other grids lower it.
+     *
+     * @return the heuristic
+     */
+    public static Heuristic manhattan(GridGraph g) {
+        double[] scale = {Double.POSITIVE_INFINITY};
+        for (int u : g.getVerticesNumbers()) {
+            g.forEachNeighbor(u, (v, w) -> {
+                int len = Math.abs(g.row(u) - g.row(v)) + Math.abs(g.col(u) - g.col(v));
+                if (len > 0) {
+                    scale[0] = Math.min(scale[0], w / len);
+                }
+            });
+        }
+        double s = scale[0] == Double.POSITIVE_INFINITY ? 0.0 : Math.max(0.0, scale[0]);
+        return (v, t) -> s * (Math.abs(g.row(v) - g.row(t)) + Math.abs(g.col(v) - g.col(t)));
+    }
+
+    /**
+     * Euclidean distance scaled so that no connection of g is shorter than
+     * the estimate between its ends (the scale is the minimum of weight/length
+     * over the connections).
+     *
+     * @param coordinates - coordinates[v] is the position of vertex v (any dimension)
+     * @param g - the graph
+     * @return the heuristic
+     */
+    public static Heuristic euclidean(double[][] coordinates, Graph g) {
+        double[] scale = {Double.POSITIVE_INFINITY};
+        for (int u : g.getVerticesNumbers()) {
+            g.forEachNeighbor(u, (v, w) -> {
+                double len = distance(coordinates[u], coordinates[v]);
+                if (len > 0) {
+                    scale[0] = Math.min(scale[0], w / len);
+                }
+            });
+        }
+        double s = scale[0] == Double.POSITIVE_INFINITY ? 0.0 : Math.max(0.0, scale[0]);
+        return (v, t) -> s * distance(coordinates[v], coordinates[t]);
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return Math.sqrt(sum);
+    }
+}
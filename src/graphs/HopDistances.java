@@ -0,0 +1,85 @@
+package graphs;
+
+/**
+ * Numbers of connections on the shortest (unweighted) paths from each of the
+ * sources, as found by GraphAlgorithms.multiSourceBfs. Sources which are not
+ * in the graph reach nothing, not even themselves.
+ *
+ * @author jstar
+ */
+public final class HopDistances {
+
+    private final int[] sources;
+    private final VertexIndex index;
+    private final int[][] distances;  // by sources and indices of vertices, null if not kept
+    private final int[] eccentricity;
+    private final int[] reached;
+    private final long[] distanceSum;
+
+    HopDistances(int[] sources, VertexIndex index, int[][] distances, int[] eccentricity, int[] reached, long[] distanceSum) {
+        this.sources = sources;
+        this.index = index;
+        this.distances = distances;
+        this.eccentricity = eccentricity;
+        this.reached = reached;
+        this.distanceSum = distanceSum;
+    }
+
+    public int getNumSources() {
+        return sources.length;
+    }
+
+    /**
+     * @return vertex number of i-th source
+     */
+    public int getSource(int i) {
+        return sources[i];
+    }
+
+    public boolean hasDistances() {
+        return distances != null;
+    }
+
+    /**
+     * @return distance from i-th source to vertex v, -1 if v can not be
+     * reached (or is not in the graph)
+     */
+    public int getDistance(int i, int v) {
+        if (distances == null) {
+            throw new IllegalStateException("HopDistances: distances were not kept!");
+        }
+        int k = index.toIndex(v);
+        return k < 0 ? -1 : distances[i][k];
+    }
+
+    /**
+     * @return the greatest distance from i-th source to the vertices it
+     * reaches, -1 if the source is not in the graph
+     */
+    public int getEccentricity(int i) {
+        return eccentricity[i];
+    }
+
+    /**
+     * @return the number of vertices reached from i-th source (including it)
+     */
+    public int getNumReached(int i) {
+        return reached[i];
+    }
+
+    /**
+     * @return sum of the distances from i-th source to the vertices it reaches
+     */
+    public long getDistanceSum(int i) {
+        return distanceSum[i];
+    }
+
+    /**
+     * @return closeness of i-th source within the part of the graph it
+     * reaches: (reached vertices - 1) / sum of the distances, 0 if it reaches
+     * nothing else
+     */
+    public double getCloseness(int i) {
+        return distanceSum[i] == 0 ? 0.0 : (reached[i] - 1) / (double) distanceSum[i];
+    }
+}
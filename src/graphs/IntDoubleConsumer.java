@@ -0,0 +1,14 @@
+package graphs;
+
+/**
+ * Visitor of the graph connections: receives number of the neighbour and the
+ * weight of the connection leading to it (see Graph.forEachNeighbor)
+ *
+ * @author jstar
+ */
+@FunctionalInterface
+public interface IntDoubleConsumer {
+
+    public void accept(int vertex, double weight);
+
+}
@@ -0,0 +1,201 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Loopless paths from source to target in order of length (Yen). Paths are
+ * found lazily: the next one is computed when asked for.
+ *
+ * Each new path is a candidate made of a prefix (root) of a path found
+ * before and a spur path from the last vertex of the root, which avoids the
+ * vertices of the root and the connections leaving the spur vertex used by
+ * the found paths with the same root. The spur searches run in parallel on
+ * workspaces of this object (see ShortestPathWorkspace.Pool), the banned
+ * vertices and connections are given as bit sets - the graph is not copied.
+ * Lengths of the roots are taken from the prefix sums of the found paths.
+ *
+ * The tree of shortest paths to the target (found once, in the reversed
+ * graph) is reused: when the tree path from the spur vertex avoids the banned
+ * vertices and connections, it is the spur path and no search is needed.
+ * Otherwise its distances guide the spur search (A*) - banning only makes
+ * paths longer, so they are exact lower bounds.
+ *
+ * @author jstar
+ */
+public final class KShortestPaths implements Iterator<GraphPath> {
+
+    private final Graph g;
+    private final VertexIndex vi;
+    private final ShortestPathWorkspace.Pool workspaces;
+    private final int source, target;
+    private double[] toTarget;  // distances to the target in the tree, by vertex numbers
+    private int[] next;         // next vertex on the tree path to the target
+    private double[] potential; // toTarget by indices
+    private final List<Found> found = new ArrayList<>();
+    private final PriorityQueue<Found> candidates = new PriorityQueue<>((a, b) -> Double.compare(a.path.distance, b.path.distance));
+    private final Set<Found> known = new HashSet<>();  // found and candidates
+    private boolean expanded = true;  // spurs of the last found path are among candidates
+
+    // path with prefix sums of its length
+    private static final class Found {
+
+        final GraphPath path;
+        final double[] prefix;  // prefix[i] - length of path up to vertices[i]
+
+        Found(GraphPath path, double[] prefix) {
+            this.path = path;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Found f && Arrays.equals(f.path.vertices, path.vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(path.vertices);
+        }
+    }
+
+    /**
+     * Graphs other than CompactGraph are copied into CompactGraph first.
+     */
+    public KShortestPaths(Graph g, int source, int target) {
+        this.g = g instanceof CompactGraph ? g : new CompactGraph(g);
+        this.vi = this.g.getVertexIndex();
+        this.workspaces = new ShortestPathWorkspace.Pool(this.g);
+        this.source = source;
+        this.target = target;
+        if (g.hasVertex(source) && g.hasVertex(target)) {
+            SingleSourceGraphPaths tree = GraphAlgorithms.dijkstra(GraphAlgorithms.reverse(this.g), target);
+            toTarget = tree.d;
+            next = tree.p;
+            potential = new double[vi.size()];
+            for (int i = 0; i < potential.length; i++) {
+                potential[i] = toTarget[vi.toId(i)];
+            }
+            Found first = spur(null, 0, null, null);
+            if (first != null) {
+                candidates.add(first);
+                known.add(first);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!expanded) {
+            expand(found.get(found.size() - 1));
+            expanded = true;
+        }
+        return !candidates.isEmpty();
+    }
+
+    /**
+     * @return the shortest of the paths not returned yet
+     */
+    @Override
+    public GraphPath next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("KShortestPaths: no more paths from " + source + " to " + target + "!");
+        }
+        Found f = candidates.poll();
+        found.add(f);
+        expanded = false;
+        return f.path;
+    }
+
+    // adds the candidates branching from the last found path
+    private void expand(Found last) {
+        int[] vs = last.path.vertices;
+        List<Found> spurs = IntStream.range(0, vs.length - 1).parallel().mapToObj(i -> {
+            BitSet root = new BitSet();
+            for (int k = 0; k < i; k++) {
+                root.set(vi.toIndex(vs[k]));
+            }
+            BitSet used = new BitSet();
+            for (Found f : found) {
+                int[] fv = f.path.vertices;
+                if (fv.length > i + 1 && Arrays.equals(fv, 0, i + 1, vs, 0, i + 1)) {
+                    used.set(vi.toIndex(fv[i + 1]));
+                }
+            }
+            return spur(last, i, root, used);
+        }).toList();
+        for (Found f : spurs) {
+            if (f != null && known.add(f)) {
+                candidates.add(f);
+            }
+        }
+    }
+
+    // root: vertices 0..i of last (the whole path from source if last is null)
+    private Found spur(Found last, int i, BitSet bannedVertices, BitSet bannedFromSpur) {
+        int from = last == null ? source : last.path.vertices[i];
+        if (toTarget[from] == Double.POSITIVE_INFINITY) {
+            return null;  // banning can not help
+        }
+        int[] treePath = treePath(from, bannedVertices, bannedFromSpur);
+        if (treePath != null) {
+            return join(last, i, new GraphPath(from, target, toTarget[from], treePath, 0), null);
+        }
+        ShortestPathWorkspace ws = workspaces.take();
+        try {
+            if (ws.run(from, target, bannedVertices, bannedFromSpur, potential) == null || !ws.isSettled(target)) {
+                return null;
+            }
+            return join(last, i, ws.pathTo(target), ws);
+        } finally {
+            workspaces.give(ws);
+        }
+    }
+
+    // root of last followed by spur path sp (found in ws or taken from the tree if ws is null)
+    private Found join(Found last, int i, GraphPath sp, ShortestPathWorkspace ws) {
+        int from = sp.vertices[0];
+        int r = last == null ? 0 : i;  // vertices of the root before the spur vertex
+        int[] vertices = new int[r + sp.vertices.length];
+        double[] prefix = new double[vertices.length];
+        if (last != null) {
+            System.arraycopy(last.path.vertices, 0, vertices, 0, r);
+            System.arraycopy(last.prefix, 0, prefix, 0, r + 1);
+        }
+        double rootLength = prefix[r];
+        for (int k = 0; k < sp.vertices.length; k++) {
+            int v = sp.vertices[k];
+            vertices[r + k] = v;
+            prefix[r + k] = rootLength + (ws == null ? toTarget[from] - toTarget[v] : ws.distance(v));
+        }
+        return new Found(new GraphPath(source, target, prefix[prefix.length - 1], vertices, sp.settled), prefix);
+    }
+
+    // tree path from v to the target or null if it uses banned vertices or connections
+    private int[] treePath(int v, BitSet bannedVertices, BitSet bannedFromSpur) {
+        if (bannedFromSpur != null && v != target && bannedFromSpur.get(vi.toIndex(next[v]))) {
+            return null;
+        }
+        int len = 1;
+        for (int x = v; x != target; x = next[x]) {
+            if (bannedVertices != null && bannedVertices.get(vi.toIndex(next[x]))) {
+                return null;
+            }
+            len++;
+        }
+        int[] path = new int[len];
+        path[0] = v;
+        for (int k = 1; k < len; k++) {
+            path[k] = next[path[k - 1]];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,169 @@
+package graphs;
+
+import java.util.stream.IntStream;
+
+/**
+ * Distances to and from a few landmark vertices, giving lower bounds of the
+ * distance between any two vertices (ALT: A*, landmarks, triangle
+ * inequality, Goldberg and Harrelson). They are used as A* heuristic when
+ * the vertices have no coordinates.
+ *
+ * For landmark L and vertices v, t:
+ * d(v,t) &gt;= d(L,t) - d(L,v) and d(v,t) &gt;= d(v,L) - d(t,L).
+ *
+ * Landmarks are chosen farthest-first: the first one is the vertex farthest
+ * from an arbitrary vertex, each next one is farthest from those already
+ * chosen (unreachable vertices first). The distances are kept as floats,
+ * all landmarks of a vertex side by side; bounds are lowered by the possible
+ * rounding error, so they never exceed the real distance.
+ *
+ * @author jstar
+ */
+public final class Landmarks {
+
+    private static final double FLOAT_ERROR = 0x1p-23;  // relative, covers rounding of both terms
+
+    private final VertexIndex vi;
+    private final boolean directed;
+    private final int[] landmarks;   // vertex numbers
+    private final float[] from;      // from[v*k+i] = d(landmark i, v)
+    private final float[] to;        // to[v*k+i] = d(v, landmark i), same as from for undirected graphs
+
+    Landmarks(VertexIndex vi, boolean directed, int[] landmarks, float[] from, float[] to) {
+        this.vi = vi;
+        this.directed = directed;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Chooses k landmarks and computes their distances. Searches from the
+     * landmarks into the reversed graph run in parallel; they are skipped
+     * only when g reports it is undirected (see Graph.isDirected), as the
+     * bounds would overestimate for one-way connections.
+     *
+     * @return the landmarks or null if g is empty
+     */
+    public static Landmarks of(Graph g, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Landmarks: at least one landmark needed, " + k + " given!");
+        }
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        if (n == 0) {
+            return null;
+        }
+        k = Math.min(k, n);
+        if ((long) n * k > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Landmarks: " + k + " landmarks of " + n + " vertices do not fit into an array!");
+        }
+        int[] landmarks = new int[k];
+        float[] from = new float[n * k];
+        double[] nearest = new double[n];  // distance from the nearest landmark
+        java.util.Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+        int start = vi.toId(0);
+        SingleSourceGraphPaths sp = GraphAlgorithms.dijkstra(g, start);
+        int next = g.hasVertex(sp.farthest) && sp.d[sp.farthest] != Double.POSITIVE_INFINITY ? sp.farthest : start;
+        for (int i = 0; i < k; i++) {
+            landmarks[i] = next;
+            double[] d = GraphAlgorithms.dijkstra(g, next).d;
+            int best = -1;
+            for (int v = 0; v < n; v++) {
+                double dv = d[vi.toId(v)];
+                from[v * k + i] = (float) dv;
+                nearest[v] = Math.min(nearest[v], dv);
+                if (best < 0 || nearest[v] > nearest[best]) {
+                    best = v;
+                }
+            }
+            next = vi.toId(best);
+        }
+
+        boolean directed = g.isDirected();
+        float[] to = from;
+        if (directed) {
+            Graph r = GraphAlgorithms.reverse(g);
+            float[] t = new float[n * k];
+            int kk = k;
+            IntStream.range(0, k).parallel().forEach(i -> {
+                double[] d = GraphAlgorithms.dijkstra(r, landmarks[i]).d;
+                for (int v = 0; v < n; v++) {
+                    t[v * kk + i] = (float) d[vi.toId(v)];
+                }
+            });
+            to = t;
+        }
+        return new Landmarks(vi, directed, landmarks, from, to);
+    }
+
+    VertexIndex getVertexIndex() {
+        return vi;
+    }
+
+    float[] fromTable() {
+        return from;
+    }
+
+    float[] toTable() {
+        return to;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return the number of landmarks
+     */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /**
+     * @return vertex number of i-th landmark
+     */
+    public int getLandmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * @return the best of the triangle inequality bounds of d(v,t) (0 if v
+     * or t is not in the graph, Double.POSITIVE_INFINITY if t surely can not
+     * be reached from v)
+     */
+    public double lowerBound(int v, int t) {
+        int iv = vi.toIndex(v);
+        int it = vi.toIndex(t);
+        if (iv < 0 || it < 0) {
+            return 0.0;
+        }
+        int k = landmarks.length;
+        int ov = iv * k;
+        int ot = it * k;
+        double best = 0.0;
+        for (int i = 0; i < k; i++) {
+            best = Math.max(best, bound(from[ot + i], from[ov + i]));
+            best = Math.max(best, bound(to[ov + i], to[ot + i]));
+        }
+        return best;
+    }
+
+    // a - b lowered by the rounding error, NaN (unknown) gives 0
+    private static double bound(float a, float b) {
+        double diff = (double) a - b;
+        if (diff == Double.POSITIVE_INFINITY) {
+            return diff;
+        }
+        diff -= FLOAT_ERROR * ((double) a + b);
+        return diff > 0 ? diff : 0.0;
+    }
+
+    /**
+     * @return lowerBound as heuristic for GraphAlgorithms.aStar
+     */
+    public Heuristic heuristic() {
+        return this::lowerBound;
+    }
+}
@@ -0,0 +1,16 @@
+package graphs;
+
+/**
+ * Read-only graph working directly on the CSR sections of a binary graph
+ * file mapped into memory (see GraphIO.writeBinary and GraphIO.mapBinary).
+ * Nothing is copied to the heap: the pages are loaded by the operating system
+ * when they are used and may be shared by many processes.
+ *
+ * @author jstar
+ */
+public final class MappedGraph extends OffHeapGraph {
+
+    MappedGraph(int n, BigBuffer ids, BigBuffer offsets, BigBuffer targets, BigBuffer weights, double minEdgeWeight, double maxEdgeWeight, boolean directed) {
+        super(n, ids, offsets, targets, weights, minEdgeWeight, maxEdgeWeight, directed);
+    }
+}
@@ -1,6 +1,10 @@
 package graphs;
 
+import java.util.AbstractSet;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  *
@@ -8,6 +12,29 @@ import java.util.HashSet;
  */
 public class ModifiableGraph extends BasicGraph implements GraphBuilder  {
 
+    private final EdgeTable edgeTable = new EdgeTable(); // every edge once, in order of addition
+    private volatile long version;                       // bumped by each modification
+
+    /**
+     * @return table of the edges - id of an edge does not change when the graph grows
+     */
+    public EdgeTable getEdgeTable() {
+        return edgeTable;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return false - connections are always added in both directions
+     */
+    @Override
+    public boolean isDirected() {
+        return false;
+    }
+
     @Override
     public boolean hasVertex(int number) {
         return connectLists.containsKey(number);
@@ -42,6 +69,8 @@ public class ModifiableGraph extends BasicGraph implements GraphBuilder  {
     public void addVertex() {
         connectLists.put(++nextVertexNo, new HashSet<>());
         vertexLabels.put(nextVertexNo, "" + nextVertexNo);
+        invalidateVertexIndex();
+        version++;
     }
 
     @Override
@@ -49,6 +78,8 @@ public class ModifiableGraph extends BasicGraph implements GraphBuilder  {
         if (!connectLists.containsKey(number)) {
             connectLists.put(number, new HashSet<>());
             vertexLabels.put(number, "" + number);
+            invalidateVertexIndex();
+            version++;
             if (number >= nextVertexNo) {
                 nextVertexNo = number + 1;
             }
@@ -64,16 +95,94 @@ public class ModifiableGraph extends BasicGraph implements GraphBuilder  {
     public void addEdge(int first, int second, double weight) {
         addVertex(first);
         addVertex(second);
-        connectLists.get(first).add(new Edge(first, second, weight));
-        connectLists.get(second).add(new Edge(second, first, weight));
+        Edge e = new Edge(first, second, weight);
+        Edge back = new Edge(second, first, weight);
+        boolean added = connectLists.get(first).add(e);
+        added |= connectLists.get(second).add(back);
+        if (added) {
+            e.twin = back;
+            back.twin = e;
+            store(e);
+            store(back, e.id);
+            version++;
+        }
     }
 
+    /**
+     * Stores e itself (changes of its weight are seen by the graph), or its
+     * copy if e already belongs to another graph.
+     */
     @Override
     public void addEdge(Edge e) {
+        if (e.graph != null && e.graph != this) {
+            Edge copy = new Edge(e.getVertexA(), e.getVertexB(), e.getWeight());
+            copy.setName(e.getName());
+            e = copy;
+        }
         addVertex(e.getVertexA());
         addVertex(e.getVertexB());
-        connectLists.get(e.getVertexA()).add(e);
-        connectLists.get(e.getVertexB()).add(e);
+        boolean added = connectLists.get(e.getVertexA()).add(e);
+        added |= connectLists.get(e.getVertexB()).add(e);
+        if (added && e.graph == null) {
+            store(e);
+            version++;
+        }
+    }
+
+    private void store(Edge e) {
+        store(e, edgeTable.add(e));
+    }
+
+    private void store(Edge e, int id) {
+        e.graph = this;
+        e.id = id;
+    }
+
+    // called by Edge.setWeight
+    void weightChanged(Edge e) {
+        edgeTable.setWeight(e.id, e.getWeight());
+        invalidateEdgesWeights();
+        version++;
+    }
+
+    /**
+     * @return read-only view of the edge table: each edge once, as stored in
+     * the connection lists
+     */
+    @Override
+    public Set<Edge> getAllEdges() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new Iterator<>() {
+                    private int id = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return id < edgeTable.size();
+                    }
+
+                    @Override
+                    public Edge next() {
+                        if (id >= edgeTable.size()) {
+                            throw new NoSuchElementException();
+                        }
+                        return edgeTable.stored(id++);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Edge e && connectLists.containsKey(e.getVertexA())
+                        && connectLists.get(e.getVertexA()).stream().anyMatch(e::equals);
+            }
+
+            @Override
+            public int size() {
+                return edgeTable.size();
+            }
+        };
     }
 
     @Override
@@ -0,0 +1,125 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Breadth first search from many sources at once (MS-BFS, Then et al.).
+ *
+ * Sources are taken in batches of 64, one bit of a long for each of them:
+ * seen[v] tells which searches of the batch have reached v, visit[v] - for
+ * which of them v is on the current level. A connection u-v is scanned once
+ * per level for the whole batch: visit[u] & ~seen[v] are the searches which
+ * reach v through it. Vertices of the graph are scanned only when they are on
+ * some of the levels. The gain comes from searches which are on the same
+ * vertex at the same level - in graphs of big diameter searches from distant
+ * sources meet late, and the batch does about the work of separate searches.
+ * Batches are independent and run in parallel.
+ *
+ * @author jstar
+ */
+final class MultiSourceBFS {
+
+    private final int n;
+    private final int[] off;
+    private final int[] tgt;
+    private final int[] src;       // rows of the sources, -1 for vertices not in the graph
+    private final int[][] dist;    // null if distances are not kept
+    private final int[] ecc;
+    private final int[] reached;
+    private final long[] sum;
+
+    private MultiSourceBFS(CompactGraph g, int[] src, boolean keepDistances) {
+        n = g.getNumVertices();
+        off = g.offsets();
+        tgt = g.targets();
+        this.src = src;
+        dist = keepDistances ? new int[src.length][] : null;
+        ecc = new int[src.length];
+        reached = new int[src.length];
+        sum = new long[src.length];
+        Arrays.fill(ecc, -1);
+    }
+
+    static HopDistances run(CompactGraph g, int[] sources, boolean keepDistances) {
+        int[] src = new int[sources.length];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = g.hasVertex(sources[i]) ? g.indexOf(sources[i]) : -1;
+        }
+        MultiSourceBFS bfs = new MultiSourceBFS(g, src, keepDistances);
+        IntStream.range(0, (src.length + 63) / 64).parallel().forEach(bfs::batch);
+        return new HopDistances(sources.clone(), g.getVertexIndex(), bfs.dist, bfs.ecc, bfs.reached, bfs.sum);
+    }
+
+    // searches from sources 64*b .. 64*b+63
+    private void batch(int b) {
+        int first = 64 * b;
+        int size = Math.min(64, src.length - first);
+        long[] seen = new long[n];
+        long[] visit = new long[n];
+        long[] next = new long[n];
+        int[] frontier = new int[Math.min(n, size)];
+        int[] found = new int[n];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (dist != null) {
+                dist[first + i] = new int[n];
+                Arrays.fill(dist[first + i], -1);
+            }
+            int s = src[first + i];
+            if (s >= 0) {
+                if (visit[s] == 0) {
+                    frontier[count++] = s;
+                }
+                visit[s] |= 1L << i;
+                seen[s] |= 1L << i;
+            }
+        }
+        record(first, frontier, count, visit, 0);
+        for (int level = 1; count > 0; level++) {
+            int nextCount = 0;
+            for (int k = 0; k < count; k++) {
+                int u = frontier[k];
+                long bits = visit[u];
+                for (int j = off[u]; j < off[u + 1]; j++) {
+                    int v = tgt[j];
+                    long d = bits & ~seen[v];
+                    if (d != 0) {
+                        if (next[v] == 0) {
+                            found[nextCount++] = v;
+                        }
+                        next[v] |= d;
+                        seen[v] |= d;
+                    }
+                }
+                visit[u] = 0;
+            }
+            for (int k = 0; k < nextCount; k++) {
+                int v = found[k];
+                visit[v] = next[v];
+                next[v] = 0;
+            }
+            record(first, found, nextCount, visit, level);
+            int[] t = frontier;
+            frontier = found;
+            found = t.length == n ? t : new int[n];
+            count = nextCount;
+        }
+    }
+
+    // notes that searches visit[v] reached vertices v at given level
+    private void record(int first, int[] vertices, int count, long[] visit, int level) {
+        for (int k = 0; k < count; k++) {
+            int v = vertices[k];
+            for (long bits = visit[v]; bits != 0; bits &= bits - 1) {
+                int i = first + Long.numberOfTrailingZeros(bits);
+                if (dist != null) {
+                    dist[i][v] = level;
+                }
+                ecc[i] = level;
+                reached[i]++;
+                sum[i] += level;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package graphs;
+
+/**
+ * Thrown by shortest path algorithms which find a cycle of negative weight -
+ * then there is no shortest path. The cycle is kept as GraphPath which starts
+ * and ends at the same vertex, its distance is the (negative) weight.
+ *
+ * @author jstar
+ */
+public class NegativeCycleException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient GraphPath cycle;  // GraphPath is not serializable, the message keeps the cycle
+
+    public NegativeCycleException(GraphPath cycle) {
+        super("Negative cycle in graph: " + cycle);
+        this.cycle = cycle;
+    }
+
+    /**
+     * @return the cycle: v0, v1, ..., v0 (null after deserialization)
+     */
+    public GraphPath getCycle() {
+        return cycle;
+    }
+}
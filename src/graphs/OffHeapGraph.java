@@ -0,0 +1,266 @@
+package graphs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Read-only graph keeping its CSR arrays (see CompactGraph) outside of the
+ * Java heap: in direct memory (copyOf) or in a file mapped into memory
+ * (MappedGraph). The connections are indexed by longs, so their number is not
+ * limited to 2^31, and the garbage collector never scans nor moves them.
+ *
+ * Direct memory is limited by -XX:MaxDirectMemorySize (by default equal to
+ * the maximal heap size) and is released when the graph is garbage collected.
+ *
+ * @author jstar
+ */
+public class OffHeapGraph implements Graph {
+
+    private final int n;
+    private final BigBuffer ids;        // int[n], null if vertices are numbered 0..n-1
+    private final BigBuffer offsets;    // long[n+1]
+    private final BigBuffer targets;    // int[m] row indices of the neighbours
+    private final BigBuffer weights;    // double[m]
+    private final double minEdgeWeight, maxEdgeWeight;
+    private final boolean directed;
+
+    private VertexIndex index;
+    private CompactGraph reversed;   // created when needed (see reverse)
+
+    OffHeapGraph(int n, BigBuffer ids, BigBuffer offsets, BigBuffer targets, BigBuffer weights, double minEdgeWeight, double maxEdgeWeight, boolean directed) {
+        this.n = n;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.minEdgeWeight = minEdgeWeight;
+        this.maxEdgeWeight = maxEdgeWeight;
+        this.directed = directed;
+    }
+
+    /**
+     * Copies any graph into direct memory.
+     *
+     * @param g - the graph to copy
+     * @return the copy
+     */
+    public static OffHeapGraph copyOf(Graph g) {
+        VertexIndex vi = g.getVertexIndex();
+        int n = vi.size();
+        BigBuffer offsets = BigBuffer.allocate(8L * (n + 1));
+        long m = 0;
+        for (int i = 0; i < n; i++) {
+            m += g.degree(vi.toId(i));
+            offsets.putLong(i + 1, m);
+        }
+        BigBuffer ids = null;
+        if (!vi.isIdentity()) {
+            ids = BigBuffer.allocate(4L * n);
+            for (int i = 0; i < n; i++) {
+                ids.putInt(i, vi.toId(i));
+            }
+        }
+        BigBuffer targets = BigBuffer.allocate(4L * m);
+        BigBuffer weights = BigBuffer.allocate(8L * m);
+        long[] k = {0};
+        for (int i = 0; i < n; i++) {
+            g.forEachNeighbor(vi.toId(i), (v, w) -> {
+                int j = vi.toIndex(v);
+                if (j < 0) {
+                    throw new IllegalArgumentException("OffHeapGraph: connection leads to vertex " + v + " which is not in the graph!");
+                }
+                targets.putInt(k[0], j);
+                weights.putDouble(k[0]++, w);
+            });
+            if (k[0] != offsets.getLong(i + 1)) {
+                throw new IllegalArgumentException("OffHeapGraph: degree of vertex " + vi.toId(i) + " does not match its connections!");
+            }
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (long c = 0; c < m; c++) {
+            min = Math.min(min, weights.getDouble(c));
+            max = Math.max(max, weights.getDouble(c));
+        }
+        return m == 0 ? new OffHeapGraph(n, ids, offsets, targets, weights, 0.0, 0.0, g.isDirected())
+                : new OffHeapGraph(n, ids, offsets, targets, weights, min, max, g.isDirected());
+    }
+
+    /**
+     * @return vertex number stored in given row
+     */
+    int vertexAt(int i) {
+        return ids == null ? i : ids.getInt(i);
+    }
+
+    /**
+     * @return first connection of given row
+     */
+    long rowStart(int i) {
+        return offsets.getLong(i);
+    }
+
+    /**
+     * @return the position after the last connection of given row
+     */
+    long rowEnd(int i) {
+        return offsets.getLong(i + 1);
+    }
+
+    /**
+     * @return row index of the neighbour in k-th connection
+     */
+    int target(long k) {
+        return targets.getInt(k);
+    }
+
+    /**
+     * @return weight of k-th connection
+     */
+    double weight(long k) {
+        return weights.getDouble(k);
+    }
+
+    /**
+     * @return row index of given vertex or -1 if there is no such vertex
+     */
+    int indexOf(int v) {
+        if (ids == null) {
+            return v >= 0 && v < n ? v : -1;
+        }
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int x = ids.getInt(mid);
+            if (x < v) {
+                lo = mid + 1;
+            } else if (x > v) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of stored connections (each undirected edge is stored twice)
+     */
+    public long getNumConnections() {
+        return offsets.getLong(n);
+    }
+
+    @Override
+    public int getNumVertices() {
+        return n;
+    }
+
+    @Override
+    public int maxVertexNo() {
+        return n == 0 ? 0 : vertexAt(n - 1);
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return graph with all connections reversed, kept on the heap (this
+     * graph if it is undirected)
+     * @throws IllegalArgumentException if there are more than 2^31 connections
+     */
+    Graph reverse() {
+        if (!directed) {
+            return this;
+        }
+        if (reversed == null) {
+            reversed = CompactGraph.reverseOf(this);
+        }
+        return reversed;
+    }
+
+    @Override
+    public boolean hasVertex(int number) {
+        return indexOf(number) >= 0;
+    }
+
+    /**
+     * @return the index, for sparse vertex numbers it is built when first needed
+     */
+    @Override
+    public VertexIndex getVertexIndex() {
+        if (index == null) {
+            if (ids == null) {
+                index = VertexIndex.identity(n);
+            } else {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i++) {
+                    a[i] = ids.getInt(i);
+                }
+                index = new VertexIndex(a);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public Set<Integer> getVerticesNumbers() {
+        return getVertexIndex().asSet();
+    }
+
+    @Override
+    public Set<Edge> getAllEdges() {
+        Set<Edge> all = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            int v = vertexAt(i);
+            for (long k = rowStart(i); k < rowEnd(i); k++) {
+                all.add(new Edge(v, vertexAt(targets.getInt(k)), weights.getDouble(k)));
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public double getMinEdgeWeight() {
+        return minEdgeWeight;
+    }
+
+    @Override
+    public double getMaxEdgeWeight() {
+        return maxEdgeWeight;
+    }
+
+    @Override
+    public String getVertexLabel(int n) {
+        return null;
+    }
+
+    @Override
+    public Set<Edge> getConnectionsList(int nodeNumber) {
+        Set<Edge> s = new HashSet<>();
+        forEachNeighbor(nodeNumber, (v, w) -> s.add(new Edge(nodeNumber, v, w)));
+        return s;
+    }
+
+    @Override
+    public void forEachNeighbor(int vertexNumber, IntDoubleConsumer consumer) {
+        int i = indexOf(vertexNumber);
+        if (i >= 0) {
+            long end = rowEnd(i);
+            for (long k = rowStart(i); k < end; k++) {
+                consumer.accept(vertexAt(targets.getInt(k)), weights.getDouble(k));
+            }
+        }
+    }
+
+    @Override
+    public int degree(int vertexNumber) {
+        int i = indexOf(vertexNumber);
+        return i < 0 ? 0 : (int) (rowEnd(i) - rowStart(i));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + n + " vertices, " + getNumConnections() + " connections";
+    }
+}
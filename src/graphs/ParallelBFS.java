@@ -0,0 +1,177 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Level-synchronous, direction-optimizing BFS (Beamer, Asanovic, Patterson).
+ *
+ * Each step finds the next level from the current one (the frontier) in one
+ * of two ways. Top-down: the frontier is an array of vertices, their
+ * connections are scanned and unvisited neighbours are claimed by
+ * compare-and-set of the parent. Bottom-up: the frontier is a bit set, each
+ * unvisited vertex scans its incoming connections until it finds a parent in
+ * the frontier - worth it when the frontier is big, as most vertices find
+ * one quickly. Top-down turns into bottom-up when the frontier has more than
+ * 1/ALPHA of the connections of the unvisited vertices, and back when it
+ * holds less than 1/BETA of all vertices.
+ *
+ * Both kinds of steps are split into chunks run in parallel, in bottom-up
+ * each chunk owns a range of vertices (and words of the next bit set), so
+ * only top-down needs atomic operations.
+ *
+ * @author jstar
+ */
+final class ParallelBFS {
+
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int CHUNK = 1024;  // frontier vertices or (bottom-up) vertices of one task, multiple of 64
+
+    private final int n;
+    private final int[] off;
+    private final int[] tgt;
+    private final int[] roff;  // incoming connections
+    private final int[] rtgt;
+    private final int[] level;
+    private final AtomicIntegerArray parent;
+
+    private ParallelBFS(CompactGraph g) {
+        n = g.getNumVertices();
+        off = g.offsets();
+        tgt = g.targets();
+        CompactGraph r = g.reverse();
+        roff = r.offsets();
+        rtgt = r.targets();
+        level = new int[n];
+        parent = new AtomicIntegerArray(n);
+        Arrays.fill(level, -1);
+        for (int i = 0; i < n; i++) {
+            parent.setPlain(i, -1);
+        }
+    }
+
+    /**
+     * @return distances (in connections, -1 for unreached vertices, indexed
+     * by rows of g) and predecessors (rows, -1 for none)
+     */
+    static SingleSourceGraphPaths run(CompactGraph g, int source, ForkJoinPool pool) {
+        ParallelBFS bfs = new ParallelBFS(g);
+        int s = g.indexOf(source);
+        bfs.level[s] = 0;
+        bfs.parent.set(s, s);  // claimed, so that nobody takes it
+        pool.submit(() -> bfs.search(s)).join();
+        double[] d = new double[bfs.n];
+        int[] p = new int[bfs.n];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = bfs.level[i];
+            p[i] = bfs.parent.get(i);
+        }
+        p[s] = -1;
+        return new SingleSourceGraphPaths(d, p);
+    }
+
+    private void search(int s) {
+        int[] frontier = {s};  // top-down
+        long[] bits = null;    // bottom-up
+        long size = 1;
+        long frontierEdges = off[s + 1] - off[s];
+        long unexplored = tgt.length - frontierEdges;  // connections of unvisited vertices
+        for (int depth = 0; size > 0; depth++) {
+            if (bits == null && frontierEdges > unexplored / ALPHA) {
+                bits = new long[(n + 63) >>> 6];
+                for (int v : frontier) {
+                    bits[v >>> 6] |= 1L << v;
+                }
+                frontier = null;
+            } else if (bits != null && size < n / BETA) {
+                long[] b = bits;
+                frontier = IntStream.range(0, b.length).parallel()
+                        .flatMap(w -> IntStream.range(0, 64).filter(i -> (b[w] & (1L << i)) != 0).map(i -> (w << 6) + i))
+                        .toArray();
+                bits = null;
+            }
+            long[] found;  // number of found vertices and their connections
+            if (bits == null) {
+                frontier = topDown(frontier, depth + 1);
+                found = new long[]{frontier.length, 0};
+                for (int v : frontier) {
+                    found[1] += off[v + 1] - off[v];
+                }
+            } else {
+                long[] next = new long[bits.length];
+                found = bottomUp(bits, next, depth + 1);
+                bits = next;
+            }
+            size = found[0];
+            frontierEdges = found[1];
+            unexplored -= frontierEdges;
+        }
+    }
+
+    private int[] topDown(int[] frontier, int nextLevel) {
+        int chunks = (frontier.length + CHUNK - 1) / CHUNK;
+        if (chunks == 1) {
+            return topDown(frontier, 0, nextLevel);  // small frontier, not worth a task
+        }
+        List<int[]> parts = IntStream.range(0, chunks).parallel().mapToObj(c -> topDown(frontier, c, nextLevel)).toList();
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] next = new int[total];
+        int o = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, next, o, part.length);
+            o += part.length;
+        }
+        return next;
+    }
+
+    // vertices claimed from c-th chunk of the frontier
+    private int[] topDown(int[] frontier, int c, int nextLevel) {
+        int[] local = new int[16];
+        int size = 0;
+        for (int i = c * CHUNK, end = Math.min(frontier.length, i + CHUNK); i < end; i++) {
+            int u = frontier[i];
+            for (int k = off[u]; k < off[u + 1]; k++) {
+                int v = tgt[k];
+                if (level[v] < 0 && parent.compareAndSet(v, -1, u)) {
+                    level[v] = nextLevel;
+                    if (size == local.length) {
+                        local = Arrays.copyOf(local, 2 * size);
+                    }
+                    local[size++] = v;
+                }
+            }
+        }
+        return Arrays.copyOf(local, size);
+    }
+
+    private long[] bottomUp(long[] bits, long[] next, int nextLevel) {
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            long count = 0;
+            long edges = 0;
+            for (int v = c * CHUNK, end = Math.min(n, v + CHUNK); v < end; v++) {
+                if (level[v] < 0) {
+                    for (int k = roff[v]; k < roff[v + 1]; k++) {
+                        int u = rtgt[k];
+                        if ((bits[u >>> 6] & (1L << u)) != 0) {
+                            level[v] = nextLevel;
+                            parent.setPlain(v, u);
+                            next[v >>> 6] |= 1L << v;
+                            count++;
+                            edges += off[v + 1] - off[v];
+                            break;
+                        }
+                    }
+                }
+            }
+            return new long[]{count, edges};
+        }).reduce(new long[2], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+    }
+}
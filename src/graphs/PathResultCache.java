@@ -0,0 +1,200 @@
+package graphs;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Least recently used single source paths, bounded by their total size in
+ * bytes. Entries are keyed by the graph (its identity, not equals), its
+ * version, the algorithm and the source. A result of an older version of the
+ * graph is never returned: when the version of a graph changes, all its
+ * entries are dropped.
+ *
+ * Results are shared between the callers and must not be modified. The
+ * cache keeps references to the graphs until their entries are evicted (see
+ * invalidate and clear). It is thread safe, the paths are computed outside
+ * the lock - two threads asking for the same missing entry may both compute
+ * it.
+ *
+ * @author jstar
+ */
+public class PathResultCache {
+
+    public enum Algorithm {
+        DIJKSTRA(GraphAlgorithms::dijkstra),
+        BFS(GraphAlgorithms::bfs),
+        BELLMAN_FORD(GraphAlgorithms::bellmanFord);
+
+        private final BiFunction<Graph, Integer, SingleSourceGraphPaths> run;
+
+        Algorithm(BiFunction<Graph, Integer, SingleSourceGraphPaths> run) {
+            this.run = run;
+        }
+
+        public SingleSourceGraphPaths run(Graph g, int source) {
+            return run.apply(g, source);
+        }
+    }
+
+    private static final long ENTRY_OVERHEAD = 128;  // objects headers, key and map entry
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, SingleSourceGraphPaths> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final IdentityHashMap<Graph, long[]> graphs = new IdentityHashMap<>();  // {version, entries} of cached graphs
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxBytes - bound of the total size of the cached results
+     */
+    public PathResultCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("PathResultCache: size limit can not be negative (" + maxBytes + ")!");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return cached or just computed (and cached) paths, null if the
+     * algorithm returns null (no such source)
+     */
+    public SingleSourceGraphPaths get(Graph g, Algorithm a, int source) {
+        long version = g.getVersion();
+        Key key = new Key(g, version, a, source);
+        synchronized (this) {
+            long[] cached = graphs.get(g);
+            if (cached != null && cached[0] < version) {
+                invalidate(g);
+            }
+            SingleSourceGraphPaths sp = entries.get(key);
+            if (sp != null) {
+                hits++;
+                return sp;
+            }
+            misses++;
+        }
+        SingleSourceGraphPaths sp = a.run(g, source);
+        if (sp != null) {
+            put(key, sp);
+        }
+        return sp;
+    }
+
+    private synchronized void put(Key key, SingleSourceGraphPaths sp) {
+        long[] cached = graphs.get(key.g);
+        if (cached != null && cached[0] != key.version) {
+            if (cached[0] > key.version) {
+                return;  // the graph has changed while sp was computed
+            }
+            invalidate(key.g);
+            cached = null;
+        }
+        long size = sizeOf(sp);
+        if (size > maxBytes || entries.containsKey(key)) {
+            return;
+        }
+        if (cached == null) {
+            cached = new long[]{key.version, 0};
+            graphs.put(key.g, cached);
+        }
+        entries.put(key, sp);
+        cached[1]++;
+        bytes += size;
+        Iterator<Map.Entry<Key, SingleSourceGraphPaths>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, SingleSourceGraphPaths> eldest = it.next();
+            it.remove();
+            removed(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void removed(Key key, SingleSourceGraphPaths sp) {
+        bytes -= sizeOf(sp);
+        if (--graphs.get(key.g)[1] == 0) {
+            graphs.remove(key.g);
+        }
+    }
+
+    /**
+     * Drops all entries of given graph.
+     */
+    public synchronized void invalidate(Graph g) {
+        if (!graphs.containsKey(g)) {
+            return;
+        }
+        Iterator<Map.Entry<Key, SingleSourceGraphPaths>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, SingleSourceGraphPaths> e = it.next();
+            if (e.getKey().g == g) {
+                it.remove();
+                removed(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        graphs.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated memory used by the cached results
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static long sizeOf(SingleSourceGraphPaths sp) {
+        long size = ENTRY_OVERHEAD + 8L * sp.d.length + 4L * sp.p.length;
+        return sp.f == null ? size : size + 4L * sp.f.length;
+    }
+
+    private static final class Key {
+
+        final Graph g;
+        final long version;
+        final Algorithm algorithm;
+        final int source;
+
+        Key(Graph g, long version, Algorithm algorithm, int source) {
+            this.g = g;
+            this.version = version;
+            this.algorithm = algorithm;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.g == g && k.version == version && k.algorithm == algorithm && k.source == source;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(g) * 31 + Long.hashCode(version)) * 31 + algorithm.ordinal()) * 31 + source;
+        }
+    }
+}
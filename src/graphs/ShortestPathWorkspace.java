@@ -0,0 +1,384 @@
+package graphs;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Memory for repeated Dijkstra queries on one graph.
+ *
+ * All arrays are allocated once, a query does not clear them: each entry is
+ * valid only if its stamp equals the number of the current query, so
+ * starting a query costs O(1) and the query itself touches only the
+ * vertices it reaches. The search may stop early, when all the targets are
+ * settled or when the distances exceed given bound.
+ *
+ * Results are read from the workspace (run returns it) and stay valid until
+ * the next query. The workspace is not thread safe - each thread should use
+ * its own one (see forThread). The vertices of the graph must not change
+ * while the workspace is used (connections may).
+ *
+ * Algorithms of this package take their workspaces from a Pool of their own,
+ * not from forThread, so they do not spoil the results kept in the caller's
+ * workspace.
+ *
+ * @author jstar
+ */
+public class ShortestPathWorkspace {
+
+    private static final int SETTLED = -2;  // pos of a settled vertex, -1 means not queued
+
+    private static final ThreadLocal<SoftReference<ShortestPathWorkspace>> perThread = new ThreadLocal<>();
+
+    private final Graph g;
+    private final CompactGraph csr;  // g itself or null
+    private final VertexIndex vi;
+
+    private final double[] d;
+    private final double[] key;    // order of the heap: d, or d + potential
+    private final int[] p;
+    private final int[] pos;       // position in the heap, -1 or SETTLED
+    private final int[] stamp;     // d, p and pos are valid if stamp == query
+    private final int[] heap;
+    private final int[] settled;   // settled vertices in order of distance
+    private final int[] targetStamp;
+    private int query;
+    private int heapSize;
+    private int numSettled;
+    private int source = -1;
+    private BitSet banned;            // vertices (indices) not entered by the current query or null
+    private BitSet bannedFromSource;  // neighbours not reached directly from the source or null
+    private double[] potential;       // lower bounds of the distances to the target (indices) or null
+
+    public ShortestPathWorkspace(Graph g) {
+        this.g = g;
+        this.csr = g instanceof CompactGraph cg ? cg : null;
+        this.vi = g.getVertexIndex();
+        int n = vi.size();
+        d = new double[n];
+        key = new double[n];
+        p = new int[n];
+        pos = new int[n];
+        stamp = new int[n];
+        heap = new int[n];
+        settled = new int[n];
+        targetStamp = new int[n];
+    }
+
+    /**
+     * The thread holds its workspace by a soft reference: it is reused while
+     * the caller keeps it or the memory is not needed, but it does not keep
+     * the graph alive for ever.
+     *
+     * @return workspace of the current thread for g (made again when the
+     * thread switches to another graph or the old one was collected)
+     */
+    public static ShortestPathWorkspace forThread(Graph g) {
+        SoftReference<ShortestPathWorkspace> ref = perThread.get();
+        ShortestPathWorkspace w = ref == null ? null : ref.get();
+        if (w == null || w.g != g) {
+            w = new ShortestPathWorkspace(g);
+            perThread.set(new SoftReference<>(w));
+        }
+        return w;
+    }
+
+    /**
+     * Workspaces of one graph shared by the tasks of one computation: a task
+     * takes a free one (or a new one) and gives it back when it is done, so
+     * there are no more of them than tasks running at the same time. They
+     * are dropped together with the pool.
+     */
+    static final class Pool {
+
+        private final Graph g;
+        private final ConcurrentLinkedQueue<ShortestPathWorkspace> free = new ConcurrentLinkedQueue<>();
+
+        Pool(Graph g) {
+            this.g = g;
+        }
+
+        ShortestPathWorkspace take() {
+            ShortestPathWorkspace w = free.poll();
+            return w == null ? new ShortestPathWorkspace(g) : w;
+        }
+
+        void give(ShortestPathWorkspace w) {
+            free.add(w);
+        }
+    }
+
+    public Graph getGraph() {
+        return g;
+    }
+
+    /**
+     * Finds shortest paths to all vertices reachable from the source.
+     *
+     * @return this workspace or null if there is no such source
+     */
+    public ShortestPathWorkspace run(int source) {
+        return run(source, null, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds shortest paths not longer than maxDistance.
+     *
+     * @return this workspace or null if there is no such source
+     */
+    public ShortestPathWorkspace run(int source, double maxDistance) {
+        return run(source, null, maxDistance);
+    }
+
+    /**
+     * Stops as soon as all targets (which are in the graph) are settled or
+     * the distances exceed maxDistance.
+     *
+     * @param targets - vertex numbers or null for all the vertices
+     * @param maxDistance - Double.POSITIVE_INFINITY for no bound
+     * @return this workspace or null if there is no such source
+     */
+    public ShortestPathWorkspace run(int source, int[] targets, double maxDistance) {
+        return run(source, targets, maxDistance, null, null, null);
+    }
+
+    /**
+     * Search from source to target which does not enter bannedVertices and
+     * does not use the connections from the source to bannedFromSource (used
+     * by KShortestPaths for spur paths). With a potential it is A*: vertices
+     * are settled in order of d + potential, which must be consistent
+     * (potential[u] &lt;= w(u,v) + potential[v]), vertices of infinite
+     * potential are not entered. Only the target is sure to be settled with
+     * its shortest distance then.
+     *
+     * @param bannedVertices - indices (see VertexIndex) or null
+     * @param bannedFromSource - indices or null
+     * @param potential - by indices or null
+     * @return this workspace or null if there is no such source
+     */
+    ShortestPathWorkspace run(int source, int target, BitSet bannedVertices, BitSet bannedFromSource, double[] potential) {
+        return run(source, new int[]{target}, Double.POSITIVE_INFINITY, bannedVertices, bannedFromSource, potential);
+    }
+
+    private ShortestPathWorkspace run(int source, int[] targets, double maxDistance, BitSet bannedVertices, BitSet bannedFromSource, double[] potential) {
+        int s = vi.toIndex(source);
+        if (s < 0) {
+            return null;
+        }
+        banned = bannedVertices;
+        this.bannedFromSource = bannedFromSource;
+        this.potential = potential;
+        nextQuery();
+        this.source = source;
+        int remaining = -1;  // no targets
+        if (targets != null) {
+            remaining = 0;
+            for (int t : targets) {
+                int i = vi.toIndex(t);
+                if (i >= 0 && targetStamp[i] != query) {
+                    targetStamp[i] = query;
+                    remaining++;
+                }
+            }
+            if (remaining == 0) {
+                return this;
+            }
+        }
+        touch(s);
+        d[s] = 0.0;
+        key[s] = potential == null ? 0.0 : potential[s];
+        push(s);
+        while (heapSize > 0) {
+            int u = heap[0];
+            double du = d[u];
+            if (du > maxDistance) {
+                break;
+            }
+            pop();
+            pos[u] = SETTLED;
+            settled[numSettled++] = u;
+            if (remaining > 0 && targetStamp[u] == query && --remaining == 0) {
+                break;
+            }
+            if (csr != null) {
+                int[] off = csr.offsets();
+                int[] tgt = csr.targets();
+                double[] wgt = csr.weights();
+                for (int k = off[u]; k < off[u + 1]; k++) {
+                    relax(u, tgt[k], du + wgt[k]);
+                }
+            } else {
+                g.forEachNeighbor(vi.toId(u), (v, w) -> relax(u, vi.toIndex(v), du + w));
+            }
+        }
+        return this;
+    }
+
+    private void nextQuery() {
+        if (++query == Integer.MAX_VALUE) {  // stamps would repeat
+            Arrays.fill(stamp, 0);
+            Arrays.fill(targetStamp, 0);
+            query = 1;
+        }
+        heapSize = 0;
+        numSettled = 0;
+    }
+
+    private void touch(int i) {
+        stamp[i] = query;
+        d[i] = Double.POSITIVE_INFINITY;
+        p[i] = -1;
+        pos[i] = -1;
+    }
+
+    private void relax(int u, int v, double dv) {
+        if (banned != null && banned.get(v) || bannedFromSource != null && u == settled[0] && bannedFromSource.get(v)
+                || potential != null && potential[v] == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        if (stamp[v] != query) {
+            touch(v);
+        }
+        if (dv < d[v] && pos[v] != SETTLED) {
+            d[v] = dv;
+            key[v] = potential == null ? dv : dv + potential[v];
+            p[v] = u;
+            if (pos[v] < 0) {
+                push(v);
+            } else {
+                up(pos[v]);
+            }
+        }
+    }
+
+    private void push(int v) {
+        heap[heapSize] = v;
+        pos[v] = heapSize;
+        up(heapSize++);
+    }
+
+    private void up(int c) {
+        int v = heap[c];
+        while (c > 0) {
+            int parent = (c - 1) / 2;
+            if (key[heap[parent]] <= key[v]) {
+                break;
+            }
+            heap[c] = heap[parent];
+            pos[heap[c]] = c;
+            c = parent;
+        }
+        heap[c] = v;
+        pos[v] = c;
+    }
+
+    private void pop() {
+        int last = heap[--heapSize];
+        int c = 0;
+        while (2 * c + 1 < heapSize) {
+            int child = 2 * c + 1;
+            if (child + 1 < heapSize && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            if (key[last] <= key[heap[child]]) {
+                break;
+            }
+            heap[c] = heap[child];
+            pos[heap[c]] = c;
+            c = child;
+        }
+        if (heapSize > 0) {
+            heap[c] = last;
+            pos[last] = c;
+        }
+    }
+
+    /**
+     * @return source of the last query
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return true if the shortest path to v was found by the last query
+     */
+    public boolean isSettled(int v) {
+        int i = vi.toIndex(v);
+        return i >= 0 && stamp[i] == query && pos[i] == SETTLED;
+    }
+
+    /**
+     * @return length of the shortest path to v, Double.POSITIVE_INFINITY if
+     * it was not found (see isSettled)
+     */
+    public double distance(int v) {
+        return isSettled(v) ? d[vi.toIndex(v)] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return vertex preceding v on the shortest path or -1
+     */
+    public int predecessor(int v) {
+        if (!isSettled(v)) {
+            return -1;
+        }
+        int i = p[vi.toIndex(v)];
+        return i < 0 ? -1 : vi.toId(i);
+    }
+
+    /**
+     * @return the number of settled vertices
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * @return k-th settled vertex, vertices are settled in order of distance
+     */
+    public int getSettled(int k) {
+        if (k < 0 || k >= numSettled) {
+            throw new IndexOutOfBoundsException("ShortestPathWorkspace: " + k + " vertices were not settled!");
+        }
+        return vi.toId(settled[k]);
+    }
+
+    /**
+     * @return the shortest path from the source to v (copied)
+     */
+    public GraphPath pathTo(int v) {
+        if (!isSettled(v)) {
+            return new GraphPath(source, v, Double.POSITIVE_INFINITY, new int[0], numSettled);
+        }
+        int t = vi.toIndex(v);
+        int len = 0;
+        for (int x = t; x >= 0; x = p[x]) {
+            len++;
+        }
+        int[] path = new int[len];
+        for (int x = t, i = len - 1; x >= 0; x = p[x], i--) {
+            path[i] = vi.toId(x);
+        }
+        return new GraphPath(source, v, d[t], path, numSettled);
+    }
+
+    /**
+     * @return copy of the result in the form returned by GraphAlgorithms.dijkstra
+     * (vertices which were not settled get Double.POSITIVE_INFINITY)
+     */
+    public SingleSourceGraphPaths toSingleSourceGraphPaths() {
+        int size = vi.size() == 0 ? 1 : vi.maxId() + 1;
+        double[] vd = new double[size];
+        int[] vp = new int[size];
+        Arrays.fill(vd, Double.POSITIVE_INFINITY);
+        Arrays.fill(vp, -1);
+        for (int k = 0; k < numSettled; k++) {
+            int i = settled[k];
+            vd[vi.toId(i)] = d[i];
+            vp[vi.toId(i)] = p[i] < 0 ? -1 : vi.toId(p[i]);
+        }
+        return new SingleSourceGraphPaths(vd, vp);
+    }
+}
@@ -0,0 +1,363 @@
+package graphs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parser of the text graph files (see GraphIO) working directly on the bytes
+ * of the file mapped into memory.
+ *
+ * The file is cut into chunks at line boundaries, chunks are parsed in
+ * parallel on the common ForkJoinPool and give primitive arrays of
+ * connections, which are finally joined into one Connections object.
+ * Numbers are parsed from the bytes without creating Strings (except for
+ * doubles which the fast path can not convert exactly, e.g. those with 17
+ * significant digits printed by Double.toString).
+ *
+ * @author jstar
+ */
+final class TextGraphParser {
+
+    /**
+     * Layout of the lines.
+     */
+    enum Format {
+        EDGE_LIST, // <name> <node_from> <node_to> <weight>, blank lines are skipped
+        ADJACENCY  // <node_to> :<weight> ..., i-th line describes vertex i
+    }
+
+    private static final long CHUNK_SIZE = 32L << 20;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Growable arrays of parsed connections.
+     * For ADJACENCY format "from" holds the line number.
+     */
+    static final class Connections {
+
+        int lines;
+        int size;
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        double[] weights = new double[1024];
+
+        void add(int f, int t, double w) {
+            if (size == from.length) {
+                int capacity = size + (size >> 1);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            from[size] = f;
+            to[size] = t;
+            weights[size++] = w;
+        }
+    }
+
+    private TextGraphParser() {
+    }
+
+    /**
+     * @return position of the first byte after the end of line containing
+     * given position (or size of the file)
+     */
+    static long nextLine(FileChannel ch, long position) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(4096);
+        long size = ch.size();
+        while (position < size) {
+            b.clear();
+            int n = ch.read(b, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (b.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * Reads ints from the line starting at given position.
+     *
+     * @return the numbers, an IOException is thrown if there are less than count
+     */
+    static int[] readInts(FileChannel ch, long position, int count) throws IOException {
+        Cursor c = new Cursor(map(ch, position, nextLine(ch, position)), true);
+        int[] v = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (!c.skipBlanks()) {
+                throw new IOException("Can not read graph: " + count + " numbers expected in line starting at " + position);
+            }
+            v[i] = c.parseInt();
+        }
+        return v;
+    }
+
+    /**
+     * Parses the part of the file starting at given position.
+     *
+     * @return all connections, for ADJACENCY format numbered from the line at
+     * given position
+     */
+    static Connections parse(FileChannel ch, long start, Format format) throws IOException {
+        long size = ch.size();
+        long length = Math.max(0, size - start);
+        int count = (int) Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        count = (int) Math.max(count, Math.min(ForkJoinPool.getCommonPoolParallelism(), length >> 20));
+        long[] bounds = new long[count + 1];
+        bounds[0] = start;
+        bounds[count] = Math.max(start, size);
+        for (int k = 1; k < count; k++) {
+            bounds[k] = Math.max(bounds[k - 1], nextLine(ch, start + length * k / count - 1));
+        }
+        List<Callable<Connections>> jobs = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            long from = bounds[k];
+            long to = bounds[k + 1];
+            jobs.add(() -> parseChunk(map(ch, from, to), format));
+        }
+        List<Connections> parts = new ArrayList<>();
+        try {
+            for (Future<Connections> f : ForkJoinPool.commonPool().invokeAll(jobs)) {
+                parts.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Can not read graph: interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause.getCause() != null && !(cause instanceof IOException)) {  // the pool wraps checked exceptions
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Can not read graph: " + cause);
+        }
+        return join(parts, format);
+    }
+
+    private static ByteBuffer map(FileChannel ch, long from, long to) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IOException("Can not read graph: line longer than 2GB");
+        }
+        return ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    private static Connections join(List<Connections> parts, Format format) throws IOException {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        long total = 0;
+        for (Connections p : parts) {
+            total += p.size;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IOException("Can not read graph: too many connections (" + total + ")");
+        }
+        Connections all = new Connections();
+        all.from = new int[(int) total];
+        all.to = new int[(int) total];
+        all.weights = new double[(int) total];
+        for (Connections p : parts) {
+            System.arraycopy(p.from, 0, all.from, all.size, p.size);
+            System.arraycopy(p.to, 0, all.to, all.size, p.size);
+            System.arraycopy(p.weights, 0, all.weights, all.size, p.size);
+            if (format == Format.ADJACENCY) {
+                for (int k = all.size; k < all.size + p.size; k++) {
+                    all.from[k] += all.lines;
+                }
+            }
+            all.size += p.size;
+            all.lines += p.lines;
+        }
+        return all;
+    }
+
+    private static Connections parseChunk(ByteBuffer b, Format format) throws IOException {
+        Connections c = new Connections();
+        Cursor cur = new Cursor(b, format == Format.ADJACENCY);
+        try {
+            while (cur.pos < cur.end) {
+                if (format == Format.EDGE_LIST) {
+                    if (cur.skipBlanks()) {
+                        cur.skipToken();  // name of the edge
+                        int from = cur.nextInt();
+                        int to = cur.nextInt();
+                        c.add(from, to, cur.nextDouble());
+                    }
+                } else {
+                    while (cur.skipBlanks()) {
+                        int to = cur.parseInt();
+                        c.add(c.lines, to, cur.nextDouble());
+                    }
+                }
+                cur.nextLine();
+                c.lines++;
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Can not read graph: " + e.getMessage());
+        }
+        return c;
+    }
+
+    // position in the mapped chunk
+    private static final class Cursor {
+
+        private final ByteBuffer b;
+        private int pos;
+        private final int end;
+        private final boolean colonIsBlank;  // ":" before weights of adjacency and grid files, part of names in edge lists
+
+        Cursor(ByteBuffer b, boolean colonIsBlank) {
+            this.b = b;
+            this.end = b.limit();
+            this.colonIsBlank = colonIsBlank;
+        }
+
+        private boolean isBlank(byte c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == ':' && colonIsBlank;
+        }
+
+        private boolean isSeparator(byte c) {
+            return c == '\n' || isBlank(c);
+        }
+
+        // skips separators in the current line, returns true if a token follows
+        boolean skipBlanks() {
+            while (pos < end && isBlank(b.get(pos))) {
+                pos++;
+            }
+            return pos < end && b.get(pos) != '\n';
+        }
+
+        void skipToken() {
+            while (pos < end && !isSeparator(b.get(pos))) {
+                pos++;
+            }
+        }
+
+        void nextLine() {
+            while (pos < end && b.get(pos++) != '\n') {
+            }
+        }
+
+        int nextInt() {
+            if (!skipBlanks()) {
+                throw new NumberFormatException("number expected");
+            }
+            return parseInt();
+        }
+
+        double nextDouble() {
+            if (!skipBlanks()) {
+                throw new NumberFormatException("number expected");
+            }
+            return parseDouble();
+        }
+
+        int parseInt() {
+            int start = pos;
+            boolean negative = pos < end && b.get(pos) == '-';
+            if (negative || pos < end && b.get(pos) == '+') {
+                pos++;
+            }
+            long v = 0;
+            int digits = 0;
+            int d;
+            while (pos < end && (d = b.get(pos) - '0') >= 0 && d <= 9) {
+                v = v * 10 + d;
+                if (v > 1L + Integer.MAX_VALUE) {
+                    break;
+                }
+                digits++;
+                pos++;
+            }
+            if (negative) {
+                v = -v;
+            }
+            if (digits == 0 || (pos < end && !isSeparator(b.get(pos))) || v > Integer.MAX_VALUE || v < Integer.MIN_VALUE) {
+                skipToken();
+                throw new NumberFormatException("For input string: \"" + text(start, pos) + "\"");
+            }
+            return (int) v;
+        }
+
+        // exact for up to 15 significant digits and small exponents, otherwise falls back to Double.parseDouble
+        double parseDouble() {
+            int start = pos;
+            boolean negative = pos < end && b.get(pos) == '-';
+            if (negative || pos < end && b.get(pos) == '+') {
+                pos++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            int d;
+            while (pos < end && (d = b.get(pos) - '0') >= 0 && d <= 9) {
+                mantissa = mantissa * 10 + d;
+                digits++;
+                pos++;
+            }
+            if (pos < end && b.get(pos) == '.') {
+                pos++;
+                while (pos < end && (d = b.get(pos) - '0') >= 0 && d <= 9) {
+                    mantissa = mantissa * 10 + d;
+                    digits++;
+                    scale++;
+                    pos++;
+                }
+            }
+            int exponent = 0;
+            boolean valid = digits > 0;
+            if (digits > 0 && pos < end && (b.get(pos) | 0x20) == 'e') {
+                pos++;
+                boolean negativeExponent = pos < end && b.get(pos) == '-';
+                if (negativeExponent || pos < end && b.get(pos) == '+') {
+                    pos++;
+                }
+                int exponentDigits = 0;
+                while (pos < end && (d = b.get(pos) - '0') >= 0 && d <= 9) {
+                    exponent = Math.min(exponent * 10 + d, 10000);
+                    exponentDigits++;
+                    pos++;
+                }
+                valid = exponentDigits > 0;  // "1e" is left to Double.parseDouble, which rejects it
+                if (negativeExponent) {
+                    exponent = -exponent;
+                }
+            }
+            exponent -= scale;
+            if (valid && digits <= 18 && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22
+                    && (pos == end || isSeparator(b.get(pos)))) {
+                double v = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -v : v;
+            }
+            pos = start;
+            skipToken();
+            return Double.parseDouble(text(start, pos));
+        }
+
+        private String text(int from, int to) {
+            byte[] t = new byte[to - from];
+            b.get(from, t);
+            return new String(t, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
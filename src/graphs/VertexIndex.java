@@ -0,0 +1,251 @@
+package graphs;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Maps (possibly sparse) vertex numbers onto continuous range 0..size()-1.
+ *
+ * Indices follow the ascending order of vertex numbers. When the numbers are
+ * already 0..size()-1 the mapping is an identity and costs nothing, otherwise
+ * toIndex uses open addressing hash table kept in a primitive array.
+ *
+ * @author jstar
+ */
+public final class VertexIndex {
+
+    private final int size;
+    private int[] ids;            // index -> vertex number (ascending), created on demand for identity
+    private final int[] slots;    // hash table: index+1 or 0 for an empty slot, null for identity
+    private final int mask;
+    private Set<Integer> view;
+
+    public VertexIndex(Collection<Integer> vertices) {
+        this(sorted(vertices));
+    }
+
+    /**
+     * @param ids - distinct vertex numbers in ascending order (the array is not copied)
+     */
+    VertexIndex(int[] ids) {
+        this.size = ids.length;
+        this.ids = ids;
+        boolean identity = true;
+        for (int i = 0; i < ids.length && identity; i++) {
+            identity = ids[i] == i;
+        }
+        if (identity) {
+            slots = null;
+            mask = 0;
+        } else {
+            int capacity = Integer.highestOneBit(Math.max(4, 2 * ids.length - 1)) << 1;
+            slots = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < ids.length; i++) {
+                int k = hash(ids[i]) & mask;
+                while (slots[k] != 0) {
+                    k = (k + 1) & mask;
+                }
+                slots[k] = i + 1;
+            }
+        }
+    }
+
+    private VertexIndex(int size) {
+        this.size = size;
+        this.ids = null;
+        this.slots = null;
+        this.mask = 0;
+    }
+
+    /**
+     * @return identity mapping of vertices 0..size-1
+     */
+    public static VertexIndex identity(int size) {
+        return new VertexIndex(size);
+    }
+
+    /**
+     * Makes index of all numbers found in the used parts of given arrays.
+     *
+     * @param arrays - vertex numbers, possibly repeated
+     * @param lengths - number of used elements of each array
+     */
+    static VertexIndex covering(int[][] arrays, int[] lengths) {
+        long total = 0;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int a = 0; a < arrays.length; a++) {
+            total += lengths[a];
+            for (int k = 0; k < lengths[a]; k++) {
+                min = Math.min(min, arrays[a][k]);
+                max = Math.max(max, arrays[a][k]);
+            }
+        }
+        if (total == 0) {
+            return identity(0);
+        }
+        if (min >= 0 && max < 2 * total + 1024) {  // dense numbering - bitmap is cheaper than sorting
+            long[] bits = new long[(max >>> 6) + 1];
+            for (int a = 0; a < arrays.length; a++) {
+                for (int k = 0; k < lengths[a]; k++) {
+                    bits[arrays[a][k] >>> 6] |= 1L << arrays[a][k];
+                }
+            }
+            int count = 0;
+            for (long b : bits) {
+                count += Long.bitCount(b);
+            }
+            if (count == max + 1) {
+                return identity(count);
+            }
+            int[] ids = new int[count];
+            int i = 0;
+            for (int v = 0; v <= max; v++) {
+                if ((bits[v >>> 6] & (1L << v)) != 0) {
+                    ids[i++] = v;
+                }
+            }
+            return new VertexIndex(ids);
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("VertexIndex: too many vertex numbers (" + total + ")!");
+        }
+        int[] all = new int[(int) total];
+        int n = 0;
+        for (int a = 0; a < arrays.length; a++) {
+            System.arraycopy(arrays[a], 0, all, n, lengths[a]);
+            n += lengths[a];
+        }
+        Arrays.parallelSort(all);
+        int count = 0;
+        for (int k = 0; k < all.length; k++) {
+            if (k == 0 || all[k] != all[k - 1]) {
+                all[count++] = all[k];
+            }
+        }
+        return new VertexIndex(Arrays.copyOf(all, count));
+    }
+
+    private static int[] sorted(Collection<Integer> vertices) {
+        int[] ids = new int[vertices.size()];
+        int i = 0;
+        for (Integer v : vertices) {
+            ids[i++] = v;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the number of vertices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if every vertex number is equal to its index
+     */
+    public boolean isIdentity() {
+        return slots == null;
+    }
+
+    /**
+     * @return index of given vertex or -1 if there is no such vertex
+     */
+    public int toIndex(int id) {
+        if (slots == null) {
+            return id >= 0 && id < size ? id : -1;
+        }
+        int k = hash(id) & mask;
+        int s;
+        while ((s = slots[k]) != 0) {
+            if (ids[s - 1] == id) {
+                return s - 1;
+            }
+            k = (k + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of the vertex with given index
+     */
+    public int toId(int index) {
+        return slots == null ? index : ids[index];
+    }
+
+    /**
+     * @return the biggest vertex number or -1 for empty index
+     */
+    public int maxId() {
+        return slots == null ? size - 1 : ids[size - 1];
+    }
+
+    /**
+     * @return read-only set of the vertex numbers
+     */
+    public Set<Integer> asSet() {
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new Iterator<>() {
+                        private int i = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < size;
+                        }
+
+                        @Override
+                        public Integer next() {
+                            if (i >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            return toId(i++);
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof Integer && toIndex((Integer) o) >= 0;
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return view;
+    }
+
+    /**
+     * @return vertex numbers in ascending order (shared, do not modify)
+     */
+    int[] ids() {
+        if (ids == null) {
+            ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = i;
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return isIdentity() ? "0.." + (size - 1) : Arrays.toString(ids);
+    }
+}
@@ -14,6 +14,7 @@ import graphs.Graph;
 import graphs.GraphAlgorithms;
 import graphs.GraphIO;
 import graphs.GridGraph;
+import graphs.PathResultCache;
 import graphs.SingleSourceGraphPaths;
 import javax.swing.*;
 import java.awt.*;
@@ -89,6 +90,7 @@ public class SwingGeneralGUI extends JFrame {
     private SingleSourceGraphPaths pathsSS = null;
     private AllToAllGraphPaths pathsAll = null;
     private Graph mst = null;
+    private final transient PathResultCache pathCache = new PathResultCache(64L << 20);  // results of repeated clicks
 
     private List<Thread> runningAlgorithms = new ArrayList<>();
 
@@ -111,6 +113,7 @@ public class SwingGeneralGUI extends JFrame {
                 edgesPerNode = Double.parseDouble(edgesPerNodeTextField.getText());
                 long start = System.nanoTime();
                 graph = new GridGraph(Integer.parseInt(cr[0]), Integer.parseInt(cr[1]), minWght, maxWght, edgesPerNode);
+                pathCache.clear();  // results of the old graph would keep it alive
                 graphView = new GridGraphView((GridGraph) graph);
                 edgeColorMapLabel.setIcon(new ImageIcon(edgeCM.createColorScaleImage(300, 20, SwingConstants.HORIZONTAL)));
                 long finish = System.nanoTime();
@@ -229,6 +232,7 @@ public class SwingGeneralGUI extends JFrame {
                         try {
                             mesh = fem.Util.loadTriangleMesh(file.getAbsolutePath());
                             graph = fem.Util.graphOfIMesh(mesh);
+                            pathCache.clear();
                             graphView = new MeshGraphView(mesh);
                             minWght = graph.getMinEdgeWeight();
                             maxWght = graph.getMaxEdgeWeight();
@@ -250,6 +254,7 @@ public class SwingGeneralGUI extends JFrame {
                         try {
                             try (Reader r = new FileReader(file)) {
                                 graph = GraphIO.readGridGraph(r);
+                                pathCache.clear();
                                 graphView = new GridGraphView((GridGraph) graph);
                             }
                             gridSizeTextField.setText(((GridGraph) graph).getNumColumns() + " x " + ((GridGraph) graph).getNumRows());
@@ -271,6 +276,7 @@ public class SwingGeneralGUI extends JFrame {
                         try {
                             try (Reader r = new FileReader(file)) {
                                 graph = GraphIO.readAdjacencyList(r);
+                                pathCache.clear();
                                 graphView = new AnyGraphView((GridGraph) graph);
                             }
                             gridSizeTextField.setText("not a grid");
@@ -292,6 +298,7 @@ public class SwingGeneralGUI extends JFrame {
                         try {
                             try (Reader r = new FileReader(file)) {
                                 graph = GraphIO.readEdgeList(r);
+                                pathCache.clear();
                                 graphView = new AnyGraphView(graph);
                             }
                             gridSizeTextField.setText("not a grid");
@@ -482,7 +489,7 @@ public class SwingGeneralGUI extends JFrame {
                             if (selectedtAlgorithm.equals("Dijkstra")) {
                                 System.out.println("Dijkstra");
                                 long start = System.nanoTime();
-                                pathsSS = GraphAlgorithms.dijkstra(graph, nodeNum);
+                                pathsSS = pathCache.get(graph, PathResultCache.Algorithm.DIJKSTRA, nodeNum);
                                 long finish = System.nanoTime();
                                 System.out.println("Dijkstra: " + (finish - start) / 1e6 + " miliseconds");
                                 mst = null;
@@ -498,7 +505,7 @@ public class SwingGeneralGUI extends JFrame {
                                         canvas.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
                                         System.out.println("Bellman-Ford");
                                         long start = System.nanoTime();
-                                        pathsSS = GraphAlgorithms.bellmanFord(graph, nodeNum);
+                                        pathsSS = pathCache.get(graph, PathResultCache.Algorithm.BELLMAN_FORD, nodeNum);
                                         long finish = System.nanoTime();
                                         System.out.println("Bellman-Ford: " + (finish - start) / 1e6 + " miliseconds");
                                         mst = null;
@@ -534,7 +541,7 @@ public class SwingGeneralGUI extends JFrame {
                             } else if (selectedtAlgorithm.equals("BFS")) {
                                 System.out.println("BFS");
                                 long start = System.nanoTime();
-                                pathsSS = GraphAlgorithms.bfs(graph, nodeNum);
+                                pathsSS = pathCache.get(graph, PathResultCache.Algorithm.BFS, nodeNum);
                                 long finish = System.nanoTime();
                                 System.out.println("BFS:" + (finish - start) / 1e6 + " miliseconds");
                                 mst = null;
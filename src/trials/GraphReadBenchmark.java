@@ -0,0 +1,48 @@
+import graphs.Graph;
+import graphs.GraphIO;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares GraphIO.readEdgeList with GraphIO.loadEdgeList.
+ *
+ * usage: GraphReadBenchmark [number_of_lines [number_of_vertices [file]]]
+ * (the file is generated when it does not exist, old reader is skipped for
+ * more than 10M lines - it needs too much memory)
+ */
+public class GraphReadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        long lines = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+        int vertices = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        Path file = args.length > 2 ? Path.of(args[2]) : Path.of(System.getProperty("java.io.tmpdir"), "bench_" + lines + ".edges");
+        if (!Files.exists(file)) {
+            System.out.println("Writing " + lines + " lines to " + file);
+            Random r = new Random(1);
+            try (BufferedWriter w = Files.newBufferedWriter(file)) {
+                for (long i = 0; i < lines; i++) {
+                    w.write("e" + i + " " + r.nextInt(vertices) + " " + r.nextInt(vertices) + " " + r.nextDouble() * 100 + "\n");
+                }
+            }
+        }
+        System.out.println(Files.size(file) + " bytes");
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            Graph g = GraphIO.loadEdgeList(file);
+            long t1 = System.nanoTime();
+            System.out.printf("loadEdgeList: %8.1f ms, %d vertices%n", (t1 - t0) / 1e6, g.getNumVertices());
+            if (lines <= 10_000_000L) {
+                try (Reader r = new FileReader(file.toFile())) {
+                    g = GraphIO.readEdgeList(r);
+                }
+                long t2 = System.nanoTime();
+                System.out.printf("readEdgeList: %8.1f ms, %d vertices%n", (t2 - t1) / 1e6, g.getNumVertices());
+            }
+        }
+    }
+}